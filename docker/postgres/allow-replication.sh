@@ -0,0 +1,5 @@
+#!/bin/bash
+# Consente le connessioni di replica dalla rete dei container (usato dal servizio postgres-replica).
+# Eseguito solo alla prima inizializzazione del volume dati del primario.
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,47 @@
+package com.awesomepizza.ordersystem.jmh;
+
+import com.awesomepizza.ordersystem.service.impl.TimeOrderedOrderCodeGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generazione dei codici ordine (ha preso il posto di Order.generateOrderCode), da un thread
+ * e con più thread in competizione sullo stesso contatore
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class OrderCodeGeneratorBenchmark {
+
+    private TimeOrderedOrderCodeGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new TimeOrderedOrderCodeGenerator(1);
+    }
+
+    @Benchmark
+    public String nextCode() {
+        return generator.nextCode();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String nextCodeContended() {
+        return generator.nextCode();
+    }
+}
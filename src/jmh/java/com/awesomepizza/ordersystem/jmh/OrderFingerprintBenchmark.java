@@ -0,0 +1,45 @@
+package com.awesomepizza.ordersystem.jmh;
+
+import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
+import com.awesomepizza.ordersystem.service.impl.OrderFingerprint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Impronta per il controllo dei duplicati (ha preso il posto del confronto hasSameItems/areNotesEqual):
+ * calcolata a ogni creazione, prima di qualunque accesso al database
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class OrderFingerprintBenchmark {
+
+    @Param({"1", "10", "50", "200"})
+    private int items;
+
+    private CreateOrderRequest request;
+
+    @Setup
+    public void setUp() {
+        request = OrderShapes.request(items);
+    }
+
+    @Benchmark
+    public String fingerprint() {
+        return OrderFingerprint.of(request);
+    }
+}
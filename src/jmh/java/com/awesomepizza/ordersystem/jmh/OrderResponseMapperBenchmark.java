@@ -0,0 +1,55 @@
+package com.awesomepizza.ordersystem.jmh;
+
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.model.Order;
+import com.awesomepizza.ordersystem.repository.projection.OrderItemRow;
+import com.awesomepizza.ordersystem.service.impl.OrderResponseMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversione in OrderResponse: dall'entità (creazione, transizioni) e dalle righe della proiezione
+ * (coda, ordini attivi, lettura per codice)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class OrderResponseMapperBenchmark {
+
+    @Param({"1", "10", "50", "200"})
+    private int items;
+
+    private Order order;
+    private List<OrderItemRow> rows;
+
+    @Setup
+    public void setUp() {
+        order = OrderShapes.order(items);
+        rows = OrderShapes.rows(items);
+    }
+
+    @Benchmark
+    public OrderResponse fromEntity() {
+        return OrderResponseMapper.toResponse(order);
+    }
+
+    @Benchmark
+    public List<OrderResponse> fromRows() {
+        return OrderResponseMapper.fromRows(rows);
+    }
+}
@@ -0,0 +1,105 @@
+package com.awesomepizza.ordersystem.jmh;
+
+import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
+import com.awesomepizza.ordersystem.dto.OrderItemRequest;
+import com.awesomepizza.ordersystem.model.Order;
+import com.awesomepizza.ordersystem.model.OrderItem;
+import com.awesomepizza.ordersystem.model.OrderStatus;
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.repository.projection.OrderItemRow;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Ordini di prova per i benchmark, con la forma di quelli reali: pizze del menu iniziale,
+ * quantità da 1 a 3, note su un elemento ogni tre. Il seme fisso rende le forme ripetibili tra commit.
+ */
+final class OrderShapes {
+
+    private static final String[][] MENU = {
+            {"Margherita", "Pomodoro, mozzarella, basilico"},
+            {"Marinara", "Pomodoro, aglio, origano"},
+            {"Diavola", "Pomodoro, mozzarella, salame piccante"},
+            {"Quattro Stagioni", "Pomodoro, mozzarella, prosciutto, funghi, carciofi, olive"},
+            {"Capricciosa", "Pomodoro, mozzarella, prosciutto, funghi, carciofi"},
+            {"Quattro Formaggi", "Mozzarella, gorgonzola, fontina, parmigiano"},
+            {"Prosciutto e Funghi", "Pomodoro, mozzarella, prosciutto cotto, funghi"},
+            {"Bufalina", "Pomodoro, mozzarella di bufala, basilico"}
+    };
+    private static final String[] NOTES = {"Senza basilico", "  ben cotta ", "Doppia mozzarella", "TAGLIATA A SPICCHI"};
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 6, 1, 19, 30);
+
+    private OrderShapes() {
+    }
+
+    static List<Pizza> menu() {
+        List<Pizza> pizzas = new ArrayList<>(MENU.length);
+        for (int i = 0; i < MENU.length; i++) {
+            pizzas.add(new Pizza((long) i + 1, MENU[i][0], MENU[i][1], new BigDecimal("6.50").add(BigDecimal.valueOf(i)), true));
+        }
+        return pizzas;
+    }
+
+    static CreateOrderRequest request(int items) {
+        Random random = new Random(items);
+        List<OrderItemRequest> itemRequests = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            OrderItemRequest item = new OrderItemRequest();
+            item.setPizzaId((long) random.nextInt(MENU.length) + 1);
+            item.setQuantity(random.nextInt(3) + 1);
+            item.setNotes(i % 3 == 0 ? NOTES[random.nextInt(NOTES.length)] : null);
+            itemRequests.add(item);
+        }
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setCustomerName("Mario Rossi");
+        request.setCustomerPhone("+39 333 123 4567");
+        request.setItems(itemRequests);
+        return request;
+    }
+
+    /**
+     * Entità come dopo il salvataggio, con gli stessi elementi di {@link #request(int)}
+     */
+    static Order order(int items) {
+        List<Pizza> menu = menu();
+        CreateOrderRequest request = request(items);
+        Order order = new Order();
+        order.setId(1000L + items);
+        order.setOrderCode("ORD-01JXH4T2M8K3Q");
+        order.setCustomerName(request.getCustomerName());
+        order.setCustomerPhone(request.getCustomerPhone());
+        order.setStatus(OrderStatus.IN_PROGRESS);
+        order.setCreatedAt(CREATED_AT);
+        order.setTakenAt(CREATED_AT.plusMinutes(2));
+        long itemId = 10_000L;
+        for (OrderItemRequest itemRequest : request.getItems()) {
+            OrderItem item = new OrderItem();
+            item.setId(itemId++);
+            item.setPizza(menu.get(itemRequest.getPizzaId().intValue() - 1));
+            item.setQuantity(itemRequest.getQuantity());
+            item.setNotes(itemRequest.getNotes());
+            order.addItem(item);
+        }
+        return order;
+    }
+
+    /**
+     * Righe piatte della proiezione usata da coda e ordini attivi, una per elemento
+     */
+    static List<OrderItemRow> rows(int items) {
+        Order order = order(items);
+        List<OrderItemRow> rows = new ArrayList<>(items);
+        for (OrderItem item : order.getItems()) {
+            Pizza pizza = item.getPizza();
+            rows.add(new OrderItemRow(order.getId(), order.getOrderCode(), order.getCustomerName(),
+                    order.getCustomerPhone(), order.getStatus(), order.getCreatedAt(), order.getTakenAt(),
+                    order.getCompletedAt(), item.getId(), pizza.getId(), pizza.getName(), pizza.getDescription(),
+                    pizza.getPrice(), item.getQuantity(), item.getNotes()));
+        }
+        return rows;
+    }
+}
@@ -11,7 +11,7 @@ import java.math.BigDecimal;
 
 /**
  * Inizializza alcuni dati di esempio nel database
- * Ora lo schema viene creato da schema.sql PRIMA di Hibernate
+ * Lo schema e le tabelle vengono creati prima dalle migrazioni Flyway
  */
 @Slf4j
 @Component
@@ -1,20 +1,31 @@
 package com.awesomepizza.ordersystem.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 @Configuration
 @NoArgsConstructor
 public class DataSourceConfig {
 
+    // Prefisso dei pool delle repliche quando il primario non ha un nome configurato
+    static final String DEFAULT_POOL_NAME = "AwesomePizzaPool";
+
     @Value("${spring.datasource.url}")
     private String url;
 
@@ -24,14 +35,75 @@ public class DataSourceConfig {
     @Value("${spring.datasource.password}")
     private String password;
 
+    // Repliche in sola lettura, separate da virgola; vuoto: tutto sul primario
+    @Value("${order.datasource.replica.urls:}")
+    private List<String> replicaUrls;
+
+    @Value("${order.datasource.replica.maximum-pool-size:20}")
+    private int replicaPoolSize;
+
+    /**
+     * Pool del primario
+     */
     @Bean(name = "customDataSource")
     @ConfigurationProperties("spring.datasource.hikari")
-    public DataSource getDataSource() {
-        DataSourceBuilder dataSourceBuilder = DataSourceBuilder.create();
+    public HikariDataSource getDataSource() {
+        DataSourceBuilder<HikariDataSource> dataSourceBuilder = DataSourceBuilder.create().type(HikariDataSource.class);
         dataSourceBuilder.driverClassName("org.postgresql.Driver");
         dataSourceBuilder.url(url);
         dataSourceBuilder.username(username);
         dataSourceBuilder.password(password);
         return dataSourceBuilder.build();
     }
+
+    /**
+     * Instradamento tra il primario e le repliche; chiude i pool delle repliche allo spegnimento
+     */
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("customDataSource") HikariDataSource primary,
+                                                        MeterRegistry meterRegistry) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String replicaUrl : replicaUrls) {
+            if (!replicaUrl.isBlank()) {
+                replicas.add(replica(primary, replicaUrl.trim(), replicas.size()));
+            }
+        }
+        if (!replicas.isEmpty()) {
+            log.info("Transazioni in sola lettura instradate su {} repliche", replicas.size());
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas, meterRegistry);
+    }
+
+    /**
+     * DataSource usato da JPA e JdbcTemplate: la connessione fisica viene presa solo al primo statement,
+     * quando il flag readOnly della transazione è già noto. Ogni statement passa da
+     * {@link SqlStatementCounter}, per il conteggio per richiesta.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return ProxyDataSourceBuilder.create(new LazyConnectionDataSourceProxy(routingDataSource))
+                .name("AwesomePizzaStatements")
+                .listener(new SqlStatementCounter())
+                .build();
+    }
+
+    /**
+     * Pool di una replica: stessa configurazione del primario, con URL, nome e dimensione propri
+     */
+    private HikariDataSource replica(HikariDataSource primary, String replicaUrl, int index) {
+        HikariDataSource replica = new HikariDataSource();
+        primary.copyStateTo(replica);
+        replica.setJdbcUrl(replicaUrl);
+        replica.setPoolName(replicaPoolName(primary.getPoolName(), index));
+        replica.setMaximumPoolSize(replicaPoolSize);
+        replica.setMinimumIdle(Math.min(primary.getMinimumIdle(), replicaPoolSize));
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    static String replicaPoolName(String primaryPoolName, int index) {
+        String prefix = primaryPoolName == null || primaryPoolName.isBlank() ? DEFAULT_POOL_NAME : primaryPoolName;
+        return prefix + "-replica-" + index;
+    }
 }
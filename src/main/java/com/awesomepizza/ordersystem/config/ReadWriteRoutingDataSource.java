@@ -0,0 +1,89 @@
+package com.awesomepizza.ordersystem.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * DataSource che instrada le connessioni tra il primario e le repliche in sola lettura.
+ *
+ * Le transazioni readOnly usano le repliche a rotazione, tutto il resto il primario. La scelta avviene
+ * quando serve la connessione fisica: va usato dietro un LazyConnectionDataSourceProxy, così all'inizio
+ * della transazione il flag readOnly è già impostato. {@link #usePrimary(Supplier)} forza il primario
+ * per le letture che devono vedere una scrittura appena fatta.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica-";
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final List<DataSource> replicas;
+    private final int replicaCount;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.replicas = List.copyOf(replicas);
+        this.replicaCount = replicas.size();
+        this.primaryConnections = meterRegistry.counter("order.datasource.connections", "target", "primary");
+        this.replicaConnections = meterRegistry.counter("order.datasource.connections", "target", "replica");
+    }
+
+    /**
+     * Esegue la lettura sul primario anche se la transazione è readOnly
+     */
+    public static <T> T usePrimary(Supplier<T> action) {
+        if (Boolean.TRUE.equals(FORCE_PRIMARY.get())) {
+            return action.get();
+        }
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            FORCE_PRIMARY.remove();
+        }
+    }
+
+    /**
+     * I pool delle repliche appartengono a questo DataSource; il primario è un bean a sé
+     */
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaCount == 0
+                || Boolean.TRUE.equals(FORCE_PRIMARY.get())
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryConnections.increment();
+            return PRIMARY;
+        }
+        replicaConnections.increment();
+        return REPLICA + Math.floorMod(nextReplica.getAndIncrement(), replicaCount);
+    }
+}
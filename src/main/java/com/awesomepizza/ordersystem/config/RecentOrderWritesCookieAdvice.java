@@ -0,0 +1,59 @@
+package com.awesomepizza.ordersystem.config;
+
+import com.awesomepizza.ordersystem.service.impl.RecentOrderWrites;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Aggiunge alla risposta il cookie read-your-writes con gli ordini scritti dalla richiesta
+ * ({@link RecentOrderWrites}), una volta sola e a scritture concluse
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class RecentOrderWritesCookieAdvice implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    private final RecentOrderWrites recentOrderWrites;
+
+    /**
+     * Risposte senza corpo: il cookie si può ancora aggiungere dopo il controller
+     */
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (!response.isCommitted()) {
+            recentOrderWrites.cookie(request)
+                    .ifPresent(cookie -> response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString()));
+        }
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    /**
+     * Risposte con corpo: il cookie va aggiunto prima che il corpo venga scritto
+     */
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            recentOrderWrites.cookie(servletRequest.getServletRequest())
+                    .ifPresent(cookie -> response.getHeaders().add(HttpHeaders.SET_COOKIE, cookie.toString()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,77 @@
+package com.awesomepizza.ordersystem.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+/**
+ * Conteggio degli statement JDBC eseguiti dal thread corrente e del tempo passato ad attenderli.
+ *
+ * Il conteggio è attivo solo tra {@link #start()} e {@link #stop()} (una richiesta HTTP);
+ * gli statement dei thread di sfondo (outbox, archiviazione, scrittura asincrona) non vengono contati.
+ * Un batch JDBC conta come uno statement, perché è un solo round trip.
+ */
+public final class SqlStatementCounter implements QueryExecutionListener {
+
+    private static final ThreadLocal<Counter> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Statement eseguiti e tempo totale (nanosecondi)
+     */
+    public record Stats(long statements, long nanos) {
+
+        public double millis() {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    public static void start() {
+        CURRENT.set(new Counter());
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Termina il conteggio del thread corrente e ne restituisce il totale
+     */
+    public static Stats stop() {
+        Stats stats = current();
+        CURRENT.remove();
+        return stats;
+    }
+
+    /**
+     * Totale parziale del thread corrente (zero se il conteggio non è attivo)
+     */
+    public static Stats current() {
+        Counter counter = CURRENT.get();
+        return counter != null ? new Stats(counter.statements, counter.nanos) : new Stats(0, 0);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Counter counter = CURRENT.get();
+        if (counter != null) {
+            counter.startedAt = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Counter counter = CURRENT.get();
+        if (counter != null) {
+            counter.statements++;
+            counter.nanos += System.nanoTime() - counter.startedAt;
+        }
+    }
+
+    private static final class Counter {
+        private long statements;
+        private long nanos;
+        private long startedAt;
+    }
+}
@@ -0,0 +1,138 @@
+package com.awesomepizza.ordersystem.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statement SQL per richiesta HTTP: conteggio e tempo, registrati come metriche per endpoint
+ * (http.server.requests.sql.statements e http.server.requests.sql.duration, tag method e uri).
+ *
+ * Fuori produzione (order.sql.server-timing-enabled) li aggiunge anche alla risposta nell'header
+ * Server-Timing, visibile negli strumenti di sviluppo del browser. Oltre la soglia
+ * order.sql.statement-warn-threshold registra un avviso: di solito è un N+1.
+ * Per i flussi SSE conta solo la richiesta iniziale (la fotografia), non gli invii successivi.
+ */
+@Slf4j
+@ControllerAdvice
+public class SqlStatementReporter implements AsyncHandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    /**
+     * Attributo della richiesta con il totale ({@link SqlStatementCounter.Stats}), letto anche dai test
+     */
+    public static final String STATS_ATTRIBUTE = SqlStatementReporter.class.getName() + ".stats";
+
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean serverTimingEnabled;
+    private final long warnThreshold;
+
+    public SqlStatementReporter(MeterRegistry meterRegistry,
+                                @Value("${order.sql.server-timing-enabled:false}") boolean serverTimingEnabled,
+                                @Value("${order.sql.statement-warn-threshold:20}") long warnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.serverTimingEnabled = serverTimingEnabled;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Solo la richiesta originale: i dispatch asincroni e di errore non ripartono da zero
+        if (request.getDispatcherType() == DispatcherType.REQUEST) {
+            SqlStatementCounter.start();
+        }
+        return true;
+    }
+
+    /**
+     * Risposte senza corpo: l'header si può ancora aggiungere dopo il controller
+     */
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (serverTimingEnabled && SqlStatementCounter.isActive() && !response.isCommitted()
+                && !response.containsHeader(SERVER_TIMING_HEADER)) {
+            response.setHeader(SERVER_TIMING_HEADER, serverTiming(SqlStatementCounter.current()));
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        record(request);
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        record(request);
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return serverTimingEnabled;
+    }
+
+    /**
+     * Risposte con corpo: l'header va aggiunto prima che il corpo venga scritto
+     */
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (SqlStatementCounter.isActive()) {
+            response.getHeaders().set(SERVER_TIMING_HEADER, serverTiming(SqlStatementCounter.current()));
+        }
+        return body;
+    }
+
+    private void record(HttpServletRequest request) {
+        if (!SqlStatementCounter.isActive()) {
+            return;
+        }
+        SqlStatementCounter.Stats stats = SqlStatementCounter.stop();
+        request.setAttribute(STATS_ATTRIBUTE, stats);
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        Tags tags = Tags.of("method", request.getMethod(), "uri", uri);
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .baseUnit("statements")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.statements());
+        Timer.builder("http.server.requests.sql.duration")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.nanos(), TimeUnit.NANOSECONDS);
+
+        if (stats.statements() > warnThreshold) {
+            log.warn("{} {}: {} statement SQL in una sola richiesta (soglia {}), possibile N+1",
+                    request.getMethod(), uri, stats.statements(), warnThreshold);
+        }
+    }
+
+    private static String serverTiming(SqlStatementCounter.Stats stats) {
+        return String.format(Locale.ROOT, "sql;desc=\"%d statement\";dur=%.1f", stats.statements(), stats.millis());
+    }
+}
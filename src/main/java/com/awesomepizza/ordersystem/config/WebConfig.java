@@ -0,0 +1,23 @@
+package com.awesomepizza.ordersystem.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configurazione Spring MVC: interceptor sulle API
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final SqlStatementReporter sqlStatementReporter;
+    private final RecentOrderWritesCookieAdvice recentOrderWritesCookieAdvice;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlStatementReporter).addPathPatterns("/api/**");
+        registry.addInterceptor(recentOrderWritesCookieAdvice).addPathPatterns("/api/**");
+    }
+}
@@ -1,11 +1,21 @@
 package com.awesomepizza.ordersystem.controller;
 
+import com.awesomepizza.ordersystem.dto.BatchCreateOrderRequest;
+import com.awesomepizza.ordersystem.dto.BatchOrderResponse;
+import com.awesomepizza.ordersystem.dto.BatchTransitionRequest;
+import com.awesomepizza.ordersystem.dto.BatchTransitionResponse;
 import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
 import com.awesomepizza.ordersystem.dto.ErrorResponse;
+import com.awesomepizza.ordersystem.dto.IdempotentOrderResult;
+import com.awesomepizza.ordersystem.dto.OrderIntakeStatus;
+import com.awesomepizza.ordersystem.dto.OrderPage;
 import com.awesomepizza.ordersystem.dto.OrderResponse;
 import com.awesomepizza.ordersystem.exception.OrderErrorCode;
 import com.awesomepizza.ordersystem.exception.OrderException;
+import com.awesomepizza.ordersystem.service.IdempotencyService;
+import com.awesomepizza.ordersystem.service.OrderIntakeService;
 import com.awesomepizza.ordersystem.service.OrderService;
+import com.awesomepizza.ordersystem.service.OrderStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,9 +26,12 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,31 +40,89 @@ import java.util.Optional;
  */
 @RestController
 @RequestMapping("/api/v1/orders")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = OrderController.NEXT_CURSOR_HEADER)
 @Tag(name = "Orders", description = "API per la gestione degli ordini di pizze")
 public class OrderController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     OrderService orderService;
+
+    @Autowired
+    IdempotencyService idempotencyService;
+
+    @Autowired
+    OrderStreamService orderStreamService;
+
+    @Autowired
+    OrderIntakeService orderIntakeService;
+
     /**
      * POST /api/v1/orders - Crea un nuovo ordine
      */
     @PostMapping
     @Operation(
             summary = "Crea un nuovo ordine",
-            description = "Crea un nuovo ordine di pizze per un cliente. Restituisce il codice ordine per il tracciamento."
+            description = "Crea un nuovo ordine di pizze per un cliente. Restituisce il codice ordine per il tracciamento. " +
+                    "Con l'header Idempotency-Key i tentativi ripetuti restituiscono la risposta originale. " +
+                    "Con l'acquisizione asincrona attiva l'ordine viene accettato (202) e salvato poco dopo."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Ordine creato con successo",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = OrderResponse.class))),
-            @ApiResponse(responseCode = "400", description = "Dati dell'ordine non validi")
+            @ApiResponse(responseCode = "202", description = "Ordine accettato, in attesa di scrittura (acquisizione asincrona)",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = OrderIntakeStatus.class))),
+            @ApiResponse(responseCode = "400", description = "Dati dell'ordine non validi"),
+            @ApiResponse(responseCode = "422", description = "Chiave di idempotenza già usata per una richiesta diversa"),
+            @ApiResponse(responseCode = "503", description = "Coda di acquisizione piena, riprovare")
     })
     public ResponseEntity<?> createOrder(
+            @Parameter(description = "Chiave di idempotenza scelta dal client per i tentativi ripetuti")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Parameter(description = "Dettagli dell'ordine da creare", required = true)
             @Valid @RequestBody CreateOrderRequest request) {
-        OrderResponse order = orderService.createOrder(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        if (idempotencyKey == null && orderIntakeService.isEnabled()) {
+            // Le richieste con chiave di idempotenza restano sincrone: la risposta memorizzata è quella definitiva
+            OrderIntakeStatus status = orderIntakeService.submit(request);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/v1/orders/" + status.getOrderCode() + "/intake"))
+                    .body(status);
+        }
+        if (idempotencyKey == null) {
+            OrderResponse order = orderService.createOrder(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        }
+
+        IdempotentOrderResult result = idempotencyService.createOrder(idempotencyKey, request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.isReplayed()))
+                .body(result.getOrder());
+    }
+
+    /**
+     * POST /api/v1/orders/batch - Crea più ordini in un'unica richiesta (aggregatori)
+     */
+    @PostMapping("/batch")
+    @Operation(
+            summary = "Crea un gruppo di ordini",
+            description = "Valida e crea fino a " + BatchCreateOrderRequest.MAX_ORDERS + " ordini in un'unica transazione. " +
+                    "Restituisce per ciascun ordine il codice creato oppure il codice di errore."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch elaborato, esito per ogni ordine",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BatchOrderResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Batch vuoto o troppo grande")
+    })
+    public ResponseEntity<BatchOrderResponse> createOrders(
+            @Parameter(description = "Ordini da creare", required = true)
+            @Valid @RequestBody BatchCreateOrderRequest request) {
+        return ResponseEntity.ok(orderService.createOrders(request.getOrders()));
     }
 
     /**
@@ -77,12 +148,82 @@ public class OrderController {
     }
 
     /**
-     * GET /api/v1/orders/queue - Ottiene la coda degli ordini in attesa (per il pizzaiolo)
+     * GET /api/v1/orders/{orderCode}/intake - Stato di acquisizione di un ordine (modalità asincrona)
+     */
+    @GetMapping("/{orderCode}/intake")
+    @Operation(
+            summary = "Stato di acquisizione di un ordine",
+            description = "Indica se un ordine accettato in modalità asincrona è ancora in coda di scrittura " +
+                    "(ACCEPTED), è stato salvato (PERSISTED) oppure la scrittura è fallita (FAILED)"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stato trovato",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = OrderIntakeStatus.class))),
+            @ApiResponse(responseCode = "404", description = "Ordine non trovato")
+    })
+    public ResponseEntity<OrderIntakeStatus> getOrderIntakeStatus(
+            @Parameter(description = "Codice dell'ordine", required = true)
+            @PathVariable String orderCode) {
+        return orderIntakeService.getStatus(orderCode)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new OrderException(OrderErrorCode.ORDER_NOT_FOUND, orderCode));
+    }
+
+    /**
+     * GET /api/v1/orders/queue - Ottiene la coda degli ordini in attesa (per il pizzaiolo), una pagina alla volta
      */
     @GetMapping("/queue")
-    public ResponseEntity<List<OrderResponse>> getOrderQueue() {
-        List<OrderResponse> orders = orderService.getPendingOrders();
-        return ResponseEntity.ok(orders);
+    @Operation(
+            summary = "Ottiene la coda degli ordini in attesa",
+            description = "Restituisce una pagina di ordini in attesa, dal più vecchio. Se esistono altri ordini " +
+                    "l'header X-Next-Cursor contiene il cursore da passare per la pagina successiva."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pagina della coda"),
+            @ApiResponse(responseCode = "400", description = "Cursore o dimensione della pagina non validi")
+    })
+    public ResponseEntity<List<OrderResponse>> getOrderQueue(
+            @Parameter(description = "Cursore restituito dalla pagina precedente")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Numero massimo di ordini per pagina")
+            @RequestParam(defaultValue = "${order.queue.default-page-size:50}") int limit) {
+        return toPageResponse(orderService.getPendingOrders(cursor, limit));
+    }
+
+    /**
+     * GET /api/v1/orders/queue/stream - Flusso SSE dei cambi di stato (schermi della cucina)
+     */
+    @GetMapping(value = "/queue/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Flusso degli ordini in tempo reale",
+            description = "Server-Sent Events: un evento SNAPSHOT con gli ordini attivi, poi un evento " +
+                    "CREATED, TAKEN, READY o COMPLETED per ogni cambio di stato. Sostituisce il polling della coda."
+    )
+    @ApiResponse(responseCode = "200", description = "Flusso di eventi aperto")
+    public SseEmitter streamOrderQueue() {
+        return orderStreamService.subscribe();
+    }
+
+    /**
+     * GET /api/v1/orders/active - Ottiene gli ordini attivi (non completati), una pagina alla volta
+     */
+    @GetMapping("/active")
+    @Operation(
+            summary = "Ottiene gli ordini attivi",
+            description = "Restituisce una pagina di ordini non ancora completati, dal più vecchio. Se esistono altri " +
+                    "ordini l'header X-Next-Cursor contiene il cursore da passare per la pagina successiva."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pagina degli ordini attivi"),
+            @ApiResponse(responseCode = "400", description = "Cursore o dimensione della pagina non validi")
+    })
+    public ResponseEntity<List<OrderResponse>> getActiveOrders(
+            @Parameter(description = "Cursore restituito dalla pagina precedente")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Numero massimo di ordini per pagina")
+            @RequestParam(defaultValue = "${order.queue.default-page-size:50}") int limit) {
+        return toPageResponse(orderService.getActiveOrders(cursor, limit));
     }
 
     /**
@@ -105,6 +246,25 @@ public class OrderController {
                 .orElseThrow(() -> new OrderException(OrderErrorCode.ORDER_NOT_FOUND, orderCode));
     }
 
+    /**
+     * PUT /api/v1/orders/next/take - Prende in carico il prossimo ordine in coda (pizzaiolo)
+     */
+    @PutMapping("/next/take")
+    @Operation(
+            summary = "Prende in carico il prossimo ordine",
+            description = "Assegna al pizzaiolo l'ordine in attesa più vecchio. Pizzaioli in concorrenza " +
+                    "ricevono ordini diversi, senza attendere i lock e senza conflitti."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ordine preso in carico con successo"),
+            @ApiResponse(responseCode = "404", description = "Nessun ordine in attesa")
+    })
+    public ResponseEntity<OrderResponse> takeNextOrder() {
+        return orderService.takeNextOrder()
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new OrderException(OrderErrorCode.ORDER_QUEUE_EMPTY));
+    }
+
     /**
      * PUT /api/v1/orders/{orderCode}/ready - Segna un ordine come pronto
      */
@@ -145,4 +305,53 @@ public class OrderController {
                 .orElseThrow(() -> new OrderException(OrderErrorCode.ORDER_NOT_FOUND, orderCode));
     }
 
+    /**
+     * PUT /api/v1/orders/batch/ready - Segna più ordini come pronti
+     */
+    @PutMapping("/batch/ready")
+    @Operation(
+            summary = "Segna un gruppo di ordini come pronti",
+            description = "Segna come pronti fino a " + BatchTransitionRequest.MAX_ORDERS + " ordini in preparazione " +
+                    "con un solo aggiornamento. Restituisce per ciascun codice l'ordine aggiornato oppure il codice di errore."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch elaborato, esito per ogni ordine",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BatchTransitionResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Batch vuoto o troppo grande")
+    })
+    public ResponseEntity<BatchTransitionResponse> markOrdersAsReady(
+            @Parameter(description = "Codici degli ordini", required = true)
+            @Valid @RequestBody BatchTransitionRequest request) {
+        return ResponseEntity.ok(orderService.markOrdersAsReady(request.getOrderCodes()));
+    }
+
+    /**
+     * PUT /api/v1/orders/batch/complete - Completa più ordini
+     */
+    @PutMapping("/batch/complete")
+    @Operation(
+            summary = "Completa un gruppo di ordini",
+            description = "Completa fino a " + BatchTransitionRequest.MAX_ORDERS + " ordini pronti con un solo aggiornamento. " +
+                    "Restituisce per ciascun codice l'ordine aggiornato oppure il codice di errore."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch elaborato, esito per ogni ordine",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BatchTransitionResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Batch vuoto o troppo grande")
+    })
+    public ResponseEntity<BatchTransitionResponse> completeOrders(
+            @Parameter(description = "Codici degli ordini", required = true)
+            @Valid @RequestBody BatchTransitionRequest request) {
+        return ResponseEntity.ok(orderService.completeOrders(request.getOrderCodes()));
+    }
+
+    private ResponseEntity<List<OrderResponse>> toPageResponse(OrderPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getOrders());
+    }
 }
@@ -0,0 +1,26 @@
+package com.awesomepizza.ordersystem.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO per la creazione di più ordini in un'unica richiesta
+ */
+@Getter
+@Setter
+@Schema(description = "Richiesta per la creazione di un gruppo di ordini")
+public class BatchCreateOrderRequest {
+
+    public static final int MAX_ORDERS = 100;
+
+    // Ogni ordine è validato singolarmente: un ordine non valido non blocca gli altri
+    @Schema(description = "Ordini da creare", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotEmpty(message = "Il batch deve contenere almeno un ordine")
+    @Size(max = MAX_ORDERS, message = "Il batch non può contenere più di " + MAX_ORDERS + " ordini")
+    private List<CreateOrderRequest> orders;
+}
@@ -0,0 +1,29 @@
+package com.awesomepizza.ordersystem.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO per la risposta alla creazione di un gruppo di ordini
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Esiti della creazione di un gruppo di ordini")
+public class BatchOrderResponse {
+
+    @Schema(description = "Numero di ordini creati", example = "9")
+    private int created;
+
+    @Schema(description = "Numero di ordini scartati", example = "1")
+    private int rejected;
+
+    @Schema(description = "Esito di ciascun ordine, nello stesso ordine della richiesta")
+    private List<BatchOrderResult> results;
+}
@@ -0,0 +1,46 @@
+package com.awesomepizza.ordersystem.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Esito della creazione di un singolo ordine all'interno di un batch
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Esito di un ordine del batch")
+public class BatchOrderResult {
+
+    public enum Outcome {
+        CREATED,
+        REJECTED
+    }
+
+    @Schema(description = "Posizione dell'ordine nella richiesta", example = "0")
+    private int index;
+
+    @Schema(description = "Esito dell'ordine", example = "CREATED")
+    private Outcome outcome;
+
+    @Schema(description = "Codice dell'ordine creato", example = "ORD-06JZ8X5VC0W00")
+    private String orderCode;
+
+    @Schema(description = "Codice di errore se l'ordine è stato scartato", example = "PIZZA_NOT_AVAILABLE")
+    private String errorCode;
+
+    @Schema(description = "Messaggio di errore se l'ordine è stato scartato")
+    private String message;
+
+    public static BatchOrderResult created(int index, String orderCode) {
+        return new BatchOrderResult(index, Outcome.CREATED, orderCode, null, null);
+    }
+
+    public static BatchOrderResult rejected(int index, String errorCode, String message) {
+        return new BatchOrderResult(index, Outcome.REJECTED, null, errorCode, message);
+    }
+}
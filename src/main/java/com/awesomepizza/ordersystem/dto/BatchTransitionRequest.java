@@ -0,0 +1,27 @@
+package com.awesomepizza.ordersystem.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO per il cambio di stato di più ordini in un'unica richiesta
+ */
+@Getter
+@Setter
+@Schema(description = "Richiesta per il cambio di stato di un gruppo di ordini")
+public class BatchTransitionRequest {
+
+    public static final int MAX_ORDERS = 100;
+
+    @Schema(description = "Codici degli ordini", example = "[\"ORD-06JZ8X5VC0W00\", \"ORD-06JZ8X5VC0W01\"]",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotEmpty(message = "Il batch deve contenere almeno un codice ordine")
+    @Size(max = MAX_ORDERS, message = "Il batch non può contenere più di " + MAX_ORDERS + " ordini")
+    private List<@NotBlank(message = "Il codice ordine è obbligatorio") String> orderCodes;
+}
@@ -0,0 +1,29 @@
+package com.awesomepizza.ordersystem.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO per la risposta al cambio di stato di un gruppo di ordini
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Esiti del cambio di stato di un gruppo di ordini")
+public class BatchTransitionResponse {
+
+    @Schema(description = "Numero di ordini aggiornati", example = "6")
+    private int updated;
+
+    @Schema(description = "Numero di ordini scartati", example = "1")
+    private int rejected;
+
+    @Schema(description = "Esito di ciascun ordine, nello stesso ordine della richiesta (codici ripetuti una volta sola)")
+    private List<BatchTransitionResult> results;
+}
@@ -0,0 +1,46 @@
+package com.awesomepizza.ordersystem.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Esito del cambio di stato di un singolo ordine all'interno di un batch
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Esito di un ordine del batch")
+public class BatchTransitionResult {
+
+    public enum Outcome {
+        UPDATED,
+        REJECTED
+    }
+
+    @Schema(description = "Codice dell'ordine", example = "ORD-06JZ8X5VC0W00")
+    private String orderCode;
+
+    @Schema(description = "Esito dell'ordine", example = "UPDATED")
+    private Outcome outcome;
+
+    @Schema(description = "Ordine aggiornato")
+    private OrderResponse order;
+
+    @Schema(description = "Codice di errore se l'ordine è stato scartato", example = "ORDER_INVALID_STATUS")
+    private String errorCode;
+
+    @Schema(description = "Messaggio di errore se l'ordine è stato scartato")
+    private String message;
+
+    public static BatchTransitionResult updated(OrderResponse order) {
+        return new BatchTransitionResult(order.getOrderCode(), Outcome.UPDATED, order, null, null);
+    }
+
+    public static BatchTransitionResult rejected(String orderCode, String errorCode, String message) {
+        return new BatchTransitionResult(orderCode, Outcome.REJECTED, null, errorCode, message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.awesomepizza.ordersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Esito di una creazione ordine con chiave di idempotenza
+ */
+@Getter
+@AllArgsConstructor
+public class IdempotentOrderResult {
+
+    private final OrderResponse order;
+
+    // true se la risposta è quella memorizzata di una richiesta precedente
+    private final boolean replayed;
+}
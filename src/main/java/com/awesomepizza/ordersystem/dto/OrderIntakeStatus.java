@@ -0,0 +1,44 @@
+package com.awesomepizza.ordersystem.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO con lo stato di acquisizione di un ordine ricevuto in modalità asincrona
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Stato di acquisizione di un ordine")
+public class OrderIntakeStatus {
+
+    public enum State {
+        // Accettato e in coda di scrittura, non ancora sul database
+        ACCEPTED,
+        // Salvato sul database
+        PERSISTED,
+        // Scrittura fallita: l'ordine non è stato salvato
+        FAILED
+    }
+
+    @Schema(description = "Codice dell'ordine", example = "ORD-06JZ8X5VC0W00")
+    private String orderCode;
+
+    @Schema(description = "Stato di acquisizione", example = "ACCEPTED")
+    private State state;
+
+    @Schema(description = "Momento dell'accettazione")
+    private LocalDateTime acceptedAt;
+
+    @Schema(description = "Momento del salvataggio sul database")
+    private LocalDateTime persistedAt;
+
+    @Schema(description = "Motivo del fallimento, se la scrittura non è riuscita")
+    private String message;
+}
@@ -0,0 +1,18 @@
+package com.awesomepizza.ordersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Pagina di ordini con il cursore per la pagina successiva (null se è l'ultima)
+ */
+@Getter
+@AllArgsConstructor
+public class OrderPage {
+
+    private final List<OrderResponse> orders;
+
+    private final String nextCursor;
+}
@@ -0,0 +1,26 @@
+package com.awesomepizza.ordersystem.event;
+
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Evento applicativo pubblicato a ogni cambio di stato di un ordine.
+ *
+ * Gli ascoltatori lo ricevono solo dopo il commit della transazione che ha prodotto il cambio.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderEvent {
+
+    public enum Type {
+        CREATED,
+        TAKEN,
+        READY,
+        COMPLETED
+    }
+
+    private final Type type;
+
+    private final OrderResponse order;
+}
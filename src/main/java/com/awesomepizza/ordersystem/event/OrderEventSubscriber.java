@@ -0,0 +1,20 @@
+package com.awesomepizza.ordersystem.event;
+
+/**
+ * Destinatario degli eventi degli ordini consegnati dall'outbox.
+ *
+ * Basta dichiarare un bean che implementa l'interfaccia. La consegna è "almeno una volta":
+ * dopo un errore o un riavvio lo stesso evento può arrivare di nuovo con lo stesso id,
+ * che il destinatario usa per scartare i duplicati. Gli eventi di uno stesso ordine arrivano
+ * nell'ordine del ciclo di vita (CREATED, TAKEN, READY, COMPLETED) anche con più istanze,
+ * e il successivo parte solo dopo la consegna del precedente. Gli id invece non seguono
+ * quell'ordine: con più istanze un evento successivo può avere un id più basso.
+ */
+public interface OrderEventSubscriber {
+
+    /**
+     * @param eventId id dell'evento nell'outbox, stabile tra le riconsegne
+     * @param event   tipo di evento e ordine al momento del cambio di stato
+     */
+    void onOrderEvent(long eventId, OrderEvent event);
+}
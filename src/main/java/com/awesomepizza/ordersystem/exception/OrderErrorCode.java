@@ -14,8 +14,20 @@ public enum OrderErrorCode {
     ORDER_ALREADY_TAKEN("Ordine '%s' già preso in carico", HttpStatus.CONFLICT),
     ORDER_INVALID_STATUS("Stato ordine non valido per questa operazione. Stato attuale: %s", HttpStatus.CONFLICT),
     ORDER_EMPTY("Impossibile creare un ordine senza pizze", HttpStatus.BAD_REQUEST),
+    ORDER_LOCKED("Ordine '%s' in uso da un'altra operazione, riprovare", HttpStatus.LOCKED),
+    ORDER_QUEUE_EMPTY("Nessun ordine in attesa da prendere in carico", HttpStatus.NOT_FOUND),
     ORDER_DUPLICATE("Ordine duplicato: un ordine simile è stato creato di recente", HttpStatus.CONFLICT),
-    INVALID_QUANTITY("Quantità non valida: %s. Deve essere maggiore di 0", HttpStatus.BAD_REQUEST);
+    ORDER_INTAKE_FULL("Troppi ordini in acquisizione, riprovare tra poco", HttpStatus.SERVICE_UNAVAILABLE),
+    ORDER_INTAKE_CLOSED("Acquisizione degli ordini in chiusura, riprovare tra poco", HttpStatus.SERVICE_UNAVAILABLE),
+    INVALID_QUANTITY("Quantità non valida: %s. Deve essere maggiore di 0", HttpStatus.BAD_REQUEST),
+
+    // Errori relativi alle chiavi di idempotenza
+    IDEMPOTENCY_KEY_INVALID("Chiave di idempotenza non valida: deve avere tra 1 e %s caratteri", HttpStatus.BAD_REQUEST),
+    IDEMPOTENCY_KEY_REUSED("La chiave di idempotenza '%s' è già stata usata per una richiesta diversa", HttpStatus.UNPROCESSABLE_ENTITY),
+
+    // Errori relativi alla paginazione
+    INVALID_CURSOR("Cursore di paginazione non valido", HttpStatus.BAD_REQUEST),
+    INVALID_PAGE_SIZE("Dimensione pagina non valida: %s. Deve essere tra 1 e %s", HttpStatus.BAD_REQUEST);
 
     private final String descrizione;
     private final HttpStatus httpStatus;
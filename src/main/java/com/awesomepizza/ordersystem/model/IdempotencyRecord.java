@@ -0,0 +1,71 @@
+package com.awesomepizza.ordersystem.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Risposta memorizzata per una chiave di idempotenza (header Idempotency-Key)
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@NoArgsConstructor
+@Getter
+@Setter
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    // Impronta della richiesta originale, per rifiutare il riuso della chiave con un corpo diverso
+    @Column(nullable = false, length = 64)
+    private String requestFingerprint;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String responseBody;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Le chiavi sono assegnate dal client: senza questo flag save() farebbe una SELECT prima dell'INSERT
+    @Transient
+    private boolean newRecord;
+
+    public IdempotencyRecord(String idempotencyKey, String requestFingerprint, String responseBody,
+                             LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.requestFingerprint = requestFingerprint;
+        this.responseBody = responseBody;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+        this.newRecord = true;
+    }
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newRecord = false;
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt.isBefore(now);
+    }
+}
@@ -7,24 +7,28 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Entità che rappresenta un ordine di pizze
  */
 @Entity
+// Tabella e indici sono definiti dalle migrazioni Flyway (db/migration)
 @Table(name = "orders")
 @AllArgsConstructor
 @Getter
 @Setter
 public class Order {
     
+    // Sequenza con ottimizzatore pooled: gli id sono assegnati in memoria a blocchi di 50,
+    // così gli INSERT possono essere raggruppati in batch JDBC (con IDENTITY Hibernate non può farlo)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -50,23 +54,28 @@ public class Order {
     
     @Column
     private LocalDateTime completedAt;
+
+    // Incrementata da ogni transizione di stato (UPDATE condizionale) e da ogni salvataggio JPA
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // Impronta canonica cliente + elementi, per il controllo dei duplicati
+    @Column(length = 64)
+    private String fingerprint;
     
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<OrderItem> items = new ArrayList<>();
 
-    // Costruttore per nuovi ordini
+    // Costruttore per nuovi ordini (il codice è assegnato dal servizio tramite OrderCodeGenerator)
     public Order() {
-        this.orderCode = generateOrderCode();
         this.status = OrderStatus.PENDING;
         this.createdAt = LocalDateTime.now();
         this.items = new ArrayList<>();
     }
     
     // Metodi di utilità
-    private String generateOrderCode() {
-        return "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-    }
-    
     public void takeOrder() {
         this.status = OrderStatus.IN_PROGRESS;
         this.takenAt = LocalDateTime.now();
@@ -0,0 +1,62 @@
+package com.awesomepizza.ordersystem.model;
+
+import com.awesomepizza.ordersystem.event.OrderEvent;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento del ciclo di vita di un ordine nella tabella outbox.
+ *
+ * Viene scritto nella stessa transazione del cambio di stato e consegnato ai destinatari
+ * in un secondo momento; processed_at è il punto di avanzamento della consegna.
+ */
+@Entity
+@Table(name = "order_outbox")
+@NoArgsConstructor
+@Getter
+@Setter
+public class OrderOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq")
+    @SequenceGenerator(name = "order_outbox_seq", sequenceName = "order_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String orderCode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OrderEvent.Type eventType;
+
+    // L'ordine serializzato in JSON al momento del cambio di stato
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime processedAt;
+
+    // Valorizzato quando l'evento viene scartato dopo max-attempts tentativi; resta in tabella
+    private LocalDateTime discardedAt;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    public OrderOutboxEvent(String orderCode, OrderEvent.Type eventType, String payload, LocalDateTime createdAt) {
+        this.orderCode = orderCode;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+}
@@ -9,19 +9,29 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.math.BigDecimal;
 
 /**
- * Entità che rappresenta una pizza nel menu
+ * Entità che rappresenta una pizza nel menu.
+ *
+ * Il menu cambia di rado: le pizze stanno nella cache di secondo livello (regione "pizzas",
+ * configurata in application.conf), così gli elementi degli ordini non le rileggono dal database.
  */
 @Entity
 @Table(name = "pizzas")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Pizza.CACHE_REGION)
 @Schema(description = "Pizza del menu")
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
 public class Pizza {
+
+    public static final String CACHE_REGION = "pizzas";
     
     @Schema(description = "ID univoco della pizza", example = "1")
     @Id
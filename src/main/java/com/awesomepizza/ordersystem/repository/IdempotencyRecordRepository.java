@@ -0,0 +1,30 @@
+package com.awesomepizza.ordersystem.repository;
+
+import com.awesomepizza.ordersystem.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository per le risposte memorizzate delle chiavi di idempotenza
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Elimina le chiavi scadute
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+
+    /**
+     * Elimina una chiave (scaduta) prima di riutilizzarla
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :idempotencyKey")
+    int deleteByKey(String idempotencyKey);
+}
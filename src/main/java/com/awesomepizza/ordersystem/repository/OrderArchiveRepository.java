@@ -0,0 +1,35 @@
+package com.awesomepizza.ordersystem.repository;
+
+import com.awesomepizza.ordersystem.repository.projection.OrderItemRow;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Archivio degli ordini completati (tabelle orders_archive e order_items_archive).
+ *
+ * Gli ordini archiviati non sono più entità gestite: si leggono come righe di proiezione,
+ * con lo stesso formato di quelle delle transizioni.
+ */
+public interface OrderArchiveRepository {
+
+    /**
+     * Sposta nell'archivio, con un solo statement, al massimo {@code limit} ordini completati prima
+     * di {@code completedBefore} insieme ai loro elementi. Le righe bloccate da altre transazioni
+     * vengono saltate.
+     *
+     * @return il numero di ordini archiviati
+     */
+    int archiveCompletedBefore(LocalDateTime completedBefore, int limit, LocalDateTime archivedAt);
+
+    /**
+     * Righe ordine + elemento + pizza di un ordine archiviato (lista vuota se non è in archivio)
+     */
+    List<OrderItemRow> findArchivedByOrderCode(String orderCode);
+
+    /**
+     * Tra i codici indicati, quelli degli ordini archiviati
+     */
+    List<String> findArchivedOrderCodes(Collection<String> orderCodes);
+}
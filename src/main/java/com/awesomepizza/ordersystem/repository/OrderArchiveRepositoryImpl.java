@@ -0,0 +1,86 @@
+package com.awesomepizza.ordersystem.repository;
+
+import com.awesomepizza.ordersystem.repository.projection.OrderItemRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementazione JDBC dell'archivio: lo spostamento di un blocco è una sola CTE
+ * (DELETE ... RETURNING seguito da INSERT), quindi non ci sono righe lette in memoria
+ * e i lock durano quanto un singolo statement
+ */
+class OrderArchiveRepositoryImpl implements OrderArchiveRepository {
+
+    private static final String ARCHIVE_TEMPLATE =
+            "WITH picked AS (" +
+            " SELECT id FROM %1$s.orders WHERE status = 'COMPLETED' AND completed_at < ?" +
+            " ORDER BY completed_at, id LIMIT ? FOR UPDATE SKIP LOCKED), " +
+            "moved AS (" +
+            " DELETE FROM %1$s.orders o USING picked p WHERE o.id = p.id" +
+            " RETURNING o.id, o.order_code, o.customer_name, o.customer_phone, o.status, o.created_at," +
+            "  o.taken_at, o.completed_at, o.version, o.fingerprint), " +
+            "archived AS (" +
+            " INSERT INTO %1$s.orders_archive (id, order_code, customer_name, customer_phone, status, created_at," +
+            "  taken_at, completed_at, version, fingerprint, archived_at)" +
+            " SELECT m.*, ? FROM moved m RETURNING id), " +
+            "moved_items AS (" +
+            " DELETE FROM %1$s.order_items i USING picked p WHERE i.order_id = p.id" +
+            " RETURNING i.id, i.order_id, i.pizza_id, i.quantity, i.notes), " +
+            "archived_items AS (" +
+            " INSERT INTO %1$s.order_items_archive (id, order_id, pizza_id, quantity, notes)" +
+            " SELECT * FROM moved_items) " +
+            "SELECT COUNT(*) FROM archived";
+
+    private static final String FIND_TEMPLATE =
+            "SELECT o.id, o.order_code, o.customer_name, o.customer_phone, o.status, o.created_at, o.taken_at," +
+            " o.completed_at, i.id AS item_id, p.id AS pizza_id, p.name AS pizza_name," +
+            " p.description AS pizza_description, p.price AS pizza_price, i.quantity, i.notes " +
+            "FROM %1$s.orders_archive o LEFT JOIN %1$s.order_items_archive i ON i.order_id = o.id" +
+            " LEFT JOIN %1$s.pizzas p ON p.id = i.pizza_id " +
+            "WHERE o.order_code = ? ORDER BY i.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String archiveSql;
+    private final String findSql;
+    private final String findCodesSql;
+
+    OrderArchiveRepositoryImpl(JdbcTemplate jdbcTemplate,
+                               @Value("${spring.jpa.properties.hibernate.default_schema:pizzeria}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveSql = String.format(ARCHIVE_TEMPLATE, schema);
+        this.findSql = String.format(FIND_TEMPLATE, schema);
+        this.findCodesSql = "SELECT order_code FROM " + schema + ".orders_archive WHERE order_code = ANY(?)";
+    }
+
+    @Override
+    public int archiveCompletedBefore(LocalDateTime completedBefore, int limit, LocalDateTime archivedAt) {
+        Integer archived = jdbcTemplate.queryForObject(archiveSql, Integer.class,
+                timestamp(completedBefore), limit, timestamp(archivedAt));
+        return archived != null ? archived : 0;
+    }
+
+    @Override
+    public List<OrderItemRow> findArchivedByOrderCode(String orderCode) {
+        return jdbcTemplate.query(findSql, OrderTransitionRepositoryImpl.ROW_MAPPER, orderCode);
+    }
+
+    @Override
+    public List<String> findArchivedOrderCodes(Collection<String> orderCodes) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(findCodesSql);
+            statement.setArray(1, connection.createArrayOf("varchar", orderCodes.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getString("order_code"));
+    }
+
+    private static SqlParameterValue timestamp(LocalDateTime value) {
+        return new SqlParameterValue(Types.TIMESTAMP, value);
+    }
+}
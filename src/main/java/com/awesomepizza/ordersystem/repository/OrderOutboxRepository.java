@@ -0,0 +1,69 @@
+package com.awesomepizza.ordersystem.repository;
+
+import com.awesomepizza.ordersystem.model.OrderOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository per la tabella outbox degli eventi degli ordini
+ */
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+    // Tipi di evento nell'ordine del ciclo di vita: array_position ne dà la posizione
+    String LIFECYCLE = "CAST(ARRAY['CREATED', 'TAKEN', 'READY', 'COMPLETED'] AS varchar[])";
+
+    /**
+     * Blocca i prossimi eventi da consegnare, in ordine di id.
+     * Con SKIP LOCKED più istanze consegnano blocchi diversi senza attendersi.
+     *
+     * Di ogni ordine viene preso solo il primo evento ancora da consegnare nel ciclo di vita
+     * (CREATED, TAKEN, READY, COMPLETED, come in OrderEvent.Type): con più istanze gli id arrivano
+     * da blocchi della sequenza diversi, e un evento successivo può avere un id più basso.
+     * Un evento che non si riesce a consegnare trattiene così solo quelli del proprio ordine;
+     * uno scartato non li trattiene più.
+     */
+    @Query(value = "SELECT * FROM {h-schema}order_outbox e WHERE e.processed_at IS NULL AND e.discarded_at IS NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM {h-schema}order_outbox p WHERE p.order_code = e.order_code " +
+            "AND p.processed_at IS NULL AND p.discarded_at IS NULL " +
+            "AND array_position(" + LIFECYCLE + ", p.event_type) < array_position(" + LIFECYCLE + ", e.event_type)) " +
+            "ORDER BY e.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OrderOutboxEvent> lockNextBatch(int limit);
+
+    /**
+     * Segna gli eventi come consegnati (punto di avanzamento)
+     */
+    @Modifying
+    @Query("UPDATE OrderOutboxEvent e SET e.processedAt = :processedAt WHERE e.id IN :ids")
+    int markProcessed(Collection<Long> ids, LocalDateTime processedAt);
+
+    /**
+     * Registra un tentativo di consegna fallito; l'evento resta da consegnare
+     */
+    @Modifying
+    @Query("UPDATE OrderOutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error WHERE e.id = :id")
+    int markFailed(Long id, String error);
+
+    /**
+     * Scarta l'evento dopo l'ultimo tentativo fallito: non viene più consegnato né eliminato dalla pulizia
+     */
+    @Modifying
+    @Query("UPDATE OrderOutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error, " +
+            "e.discardedAt = :discardedAt WHERE e.id = :id")
+    int markDiscarded(Long id, String error, LocalDateTime discardedAt);
+
+    /**
+     * Elimina gli eventi consegnati prima della data indicata; quelli scartati non hanno processed_at e restano
+     */
+    @Modifying
+    @Query("DELETE FROM OrderOutboxEvent e WHERE e.processedAt < :before")
+    int deleteProcessedBefore(LocalDateTime before);
+
+    List<OrderOutboxEvent> findByOrderCodeOrderById(String orderCode);
+}
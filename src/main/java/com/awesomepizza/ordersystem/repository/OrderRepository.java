@@ -2,13 +2,16 @@ package com.awesomepizza.ordersystem.repository;
 
 import com.awesomepizza.ordersystem.model.Order;
 import com.awesomepizza.ordersystem.model.OrderStatus;
+import com.awesomepizza.ordersystem.repository.projection.OrderCodeStatus;
+import com.awesomepizza.ordersystem.repository.projection.OrderItemRow;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import jakarta.persistence.LockModeType;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,37 +19,91 @@ import java.util.Optional;
  * Repository per la gestione degli ordini
  */
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderTransitionRepository,
+        OrderArchiveRepository {
     
     /**
      * Trova un ordine dal codice ordine
      */
     Optional<Order> findByOrderCode(String orderCode);
+
+    /**
+     * Verifica se un ordine con questo codice è stato salvato
+     */
+    boolean existsByOrderCode(String orderCode);
     
     /**
-     * Trova un ordine dal codice ordine con lock pessimistico per aggiornamenti di stato
+     * Stato attuale di un ordine, per spiegare perché una transizione non è avvenuta
+     */
+    @Query("SELECT o.status FROM Order o WHERE o.orderCode = :orderCode")
+    Optional<OrderStatus> findStatusByOrderCode(String orderCode);
+
+    /**
+     * Stato attuale di più ordini, per gli esiti delle transizioni a gruppi
      */
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.awesomepizza.ordersystem.repository.projection.OrderCodeStatus(o.orderCode, o.status) " +
+            "FROM Order o WHERE o.orderCode IN :orderCodes")
+    List<OrderCodeStatus> findStatusesByOrderCodeIn(Collection<String> orderCodes);
+
+    /**
+     * Trova un ordine dal codice caricando elementi e pizze in un'unica query
+     */
+    @EntityGraph(attributePaths = {"items", "items.pizza"})
     @Query("SELECT o FROM Order o WHERE o.orderCode = :orderCode")
-    Optional<Order> findByOrderCodeForUpdate(String orderCode);
+    Optional<Order> findWithItemsByOrderCode(String orderCode);
+
+    /*
+     * Le letture delle liste di ordini avvengono in due fasi, per evitare N+1 e restare
+     * corrette con la paginazione: prima gli id della pagina (LIMIT applicato dal database,
+     * nessun join sulle collezioni), poi ordini, elementi e pizze in un'unica query.
+     */
 
     /**
-     * Trova tutti gli ordini in attesa ordinati per data di creazione
+     * Fase 1: id degli ordini in un certo stato, ordinati per data di creazione
      */
-    List<Order> findByStatusOrderByCreatedAtAsc(OrderStatus status);
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status ORDER BY o.createdAt ASC, o.id ASC")
+    List<Long> findIdsByStatus(OrderStatus status, Limit limit);
 
     /**
-     * Trova tutti gli ordini attivi (non completati)
+     * Fase 1, pagine successive: id degli ordini in un certo stato dopo il cursore (createdAt, id).
+     * Il confronto tra tuple usa l'indice (status, created_at, id): ogni pagina costa come la prima.
      */
-    @Query("SELECT o FROM Order o WHERE o.status != com.awesomepizza.ordersystem.model.OrderStatus.COMPLETED ORDER BY o.createdAt ASC")
-    List<Order> findActiveOrders();
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status AND (o.createdAt, o.id) > (:createdAt, :id) " +
+            "ORDER BY o.createdAt ASC, o.id ASC")
+    List<Long> findIdsByStatusAfter(OrderStatus status, LocalDateTime createdAt, Long id, Limit limit);
 
     /**
-     * Trova ordini creati dopo una certa data
+     * Fase 1: id degli ordini attivi (non completati), ordinati per data di creazione
      */
-    List<Order> findByCreatedAtAfterOrderByCreatedAtAsc(LocalDateTime dateTime);
+    @Query("SELECT o.id FROM Order o WHERE o.status <> com.awesomepizza.ordersystem.model.OrderStatus.COMPLETED ORDER BY o.createdAt ASC, o.id ASC")
+    List<Long> findActiveOrderIds(Limit limit);
 
-    @Query("SELECT o FROM Order o WHERE o.status = com.awesomepizza.ordersystem.model.OrderStatus.IN_PROGRESS ORDER BY o.createdAt ASC")
-    List<Order> findInProgressOrders();
+    /**
+     * Fase 1, pagine successive: id degli ordini attivi dopo il cursore (createdAt, id)
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.status <> com.awesomepizza.ordersystem.model.OrderStatus.COMPLETED " +
+            "AND (o.createdAt, o.id) > (:createdAt, :id) ORDER BY o.createdAt ASC, o.id ASC")
+    List<Long> findActiveOrderIdsAfter(LocalDateTime createdAt, Long id, Limit limit);
+
+    /**
+     * Fase 2 (sola lettura): righe piatte ordine + elemento + pizza, senza entità gestite
+     */
+    @Query("SELECT new com.awesomepizza.ordersystem.repository.projection.OrderItemRow(" +
+            "o.id, o.orderCode, o.customerName, o.customerPhone, o.status, o.createdAt, o.takenAt, o.completedAt, " +
+            "i.id, p.id, p.name, p.description, p.price, i.quantity, i.notes) " +
+            "FROM Order o LEFT JOIN o.items i LEFT JOIN i.pizza p " +
+            "WHERE o.id IN :ids ORDER BY o.createdAt ASC, o.id ASC, i.id ASC")
+    List<OrderItemRow> findOrderItemRowsByIdIn(Collection<Long> ids);
+
+    /**
+     * Verifica se esiste un ordine con la stessa impronta creato dopo una certa data
+     */
+    boolean existsByFingerprintAndCreatedAtAfter(String fingerprint, LocalDateTime dateTime);
+
+    /**
+     * Tra le impronte indicate, restituisce quelle di ordini creati dopo una certa data
+     */
+    @Query("SELECT DISTINCT o.fingerprint FROM Order o WHERE o.fingerprint IN :fingerprints AND o.createdAt > :dateTime")
+    List<String> findRecentFingerprints(Collection<String> fingerprints, LocalDateTime dateTime);
 
 }
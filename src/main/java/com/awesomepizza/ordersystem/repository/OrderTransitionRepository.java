@@ -0,0 +1,36 @@
+package com.awesomepizza.ordersystem.repository;
+
+import com.awesomepizza.ordersystem.model.OrderStatus;
+import com.awesomepizza.ordersystem.repository.projection.OrderItemRow;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Transizioni di stato degli ordini come singolo UPDATE condizionale (compare-and-set).
+ *
+ * Ogni metodo esegue un solo statement: l'UPDATE aggiorna lo stato solo se quello attuale è quello
+ * atteso, incrementa la versione e restituisce con RETURNING l'ordine aggiornato con elementi e pizze.
+ * Una lista vuota significa che nessuna riga è stata aggiornata.
+ */
+public interface OrderTransitionRepository {
+
+    /**
+     * Porta l'ordine da {@code from} a {@code to}; i timestamp null lasciano invariato il valore attuale
+     */
+    List<OrderItemRow> transition(String orderCode, OrderStatus from, OrderStatus to,
+                                  LocalDateTime takenAt, LocalDateTime completedAt);
+
+    /**
+     * Porta da {@code from} a {@code to} tutti gli ordini indicati che sono nello stato atteso,
+     * con un solo UPDATE ({@code order_code = ANY(?)}); gli altri restano invariati
+     */
+    List<OrderItemRow> transitionAll(Collection<String> orderCodes, OrderStatus from, OrderStatus to,
+                                     LocalDateTime takenAt, LocalDateTime completedAt);
+
+    /**
+     * Prende in carico l'ordine in attesa più vecchio, saltando quelli bloccati da altre transazioni
+     */
+    List<OrderItemRow> claimNextPending(LocalDateTime takenAt);
+}
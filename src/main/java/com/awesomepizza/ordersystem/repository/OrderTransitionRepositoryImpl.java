@@ -0,0 +1,97 @@
+package com.awesomepizza.ordersystem.repository;
+
+import com.awesomepizza.ordersystem.model.OrderStatus;
+import com.awesomepizza.ordersystem.repository.projection.OrderItemRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementazione JDBC delle transizioni: UPDATE ... RETURNING in una CTE, unita a elementi e pizze,
+ * così la risposta completa arriva nello stesso round trip dell'aggiornamento
+ */
+class OrderTransitionRepositoryImpl implements OrderTransitionRepository {
+
+    private static final String UPDATE_TEMPLATE =
+            "WITH updated AS (" +
+            " UPDATE %1$s.orders SET status = ?, version = version + 1," +
+            "  taken_at = COALESCE(?, taken_at), completed_at = COALESCE(?, completed_at)" +
+            " WHERE %2$s" +
+            " RETURNING id, order_code, customer_name, customer_phone, status, created_at, taken_at, completed_at) " +
+            "SELECT u.*, i.id AS item_id, p.id AS pizza_id, p.name AS pizza_name, p.description AS pizza_description," +
+            " p.price AS pizza_price, i.quantity, i.notes " +
+            "FROM updated u LEFT JOIN %1$s.order_items i ON i.order_id = u.id LEFT JOIN %1$s.pizzas p ON p.id = i.pizza_id " +
+            "ORDER BY u.id, i.id";
+
+    // Condiviso con OrderArchiveRepositoryImpl: stesse colonne e stessi alias
+    static final RowMapper<OrderItemRow> ROW_MAPPER = (rs, rowNum) -> new OrderItemRow(
+            rs.getLong("id"),
+            rs.getString("order_code"),
+            rs.getString("customer_name"),
+            rs.getString("customer_phone"),
+            OrderStatus.valueOf(rs.getString("status")),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("taken_at", LocalDateTime.class),
+            rs.getObject("completed_at", LocalDateTime.class),
+            rs.getObject("item_id", Long.class),
+            rs.getObject("pizza_id", Long.class),
+            rs.getString("pizza_name"),
+            rs.getString("pizza_description"),
+            rs.getObject("pizza_price", BigDecimal.class),
+            rs.getObject("quantity", Integer.class),
+            rs.getString("notes"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String transitionSql;
+    private final String transitionAllSql;
+    private final String claimNextSql;
+
+    OrderTransitionRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                  @Value("${spring.jpa.properties.hibernate.default_schema:pizzeria}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transitionSql = String.format(UPDATE_TEMPLATE, schema, "order_code = ? AND status = ?");
+        this.transitionAllSql = String.format(UPDATE_TEMPLATE, schema, "order_code = ANY(?) AND status = ?");
+        this.claimNextSql = String.format(UPDATE_TEMPLATE, schema,
+                "id = (SELECT id FROM " + schema + ".orders WHERE status = ?" +
+                " ORDER BY created_at, id LIMIT 1 FOR UPDATE SKIP LOCKED)");
+    }
+
+    @Override
+    public List<OrderItemRow> transition(String orderCode, OrderStatus from, OrderStatus to,
+                                         LocalDateTime takenAt, LocalDateTime completedAt) {
+        return jdbcTemplate.query(transitionSql, ROW_MAPPER,
+                to.name(), timestamp(takenAt), timestamp(completedAt), orderCode, from.name());
+    }
+
+    @Override
+    public List<OrderItemRow> transitionAll(Collection<String> orderCodes, OrderStatus from, OrderStatus to,
+                                            LocalDateTime takenAt, LocalDateTime completedAt) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(transitionAllSql);
+            statement.setString(1, to.name());
+            statement.setObject(2, takenAt, Types.TIMESTAMP);
+            statement.setObject(3, completedAt, Types.TIMESTAMP);
+            statement.setArray(4, connection.createArrayOf("varchar", orderCodes.toArray()));
+            statement.setString(5, from.name());
+            return statement;
+        }, ROW_MAPPER);
+    }
+
+    @Override
+    public List<OrderItemRow> claimNextPending(LocalDateTime takenAt) {
+        return jdbcTemplate.query(claimNextSql, ROW_MAPPER,
+                OrderStatus.IN_PROGRESS.name(), timestamp(takenAt), timestamp(null), OrderStatus.PENDING.name());
+    }
+
+    private static SqlParameterValue timestamp(LocalDateTime value) {
+        return new SqlParameterValue(Types.TIMESTAMP, value);
+    }
+}
@@ -1,23 +1,53 @@
 package com.awesomepizza.ordersystem.repository;
 
 import com.awesomepizza.ordersystem.model.Pizza;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 /**
- * Repository per la gestione delle pizze
+ * Repository per la gestione delle pizze.
+ *
+ * Le letture del menu usano la cache delle query (regione "menu"): gli id restano in cache
+ * finché una scrittura sulla tabella pizzas non la invalida, le pizze arrivano dalla cache
+ * di secondo livello.
  */
 @Repository
 public interface PizzaRepository extends JpaRepository<Pizza, Long> {
-    
+
+    String MENU_QUERY_REGION = "menu";
+
+    /**
+     * Tutte le pizze, per la fotografia del menu
+     */
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = MENU_QUERY_REGION)
+    })
+    List<Pizza> findAll();
+
     /**
      * Trova tutte le pizze disponibili
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = MENU_QUERY_REGION)
+    })
     List<Pizza> findByAvailableTrue();
+
+    /**
+     * Legge la pizza dal database e non dalla cache di secondo livello,
+     * che può essere indietro rispetto alle scritture di altre istanze: serve prima di una modifica
+     */
+    @Query("SELECT p FROM Pizza p WHERE p.id = :id")
+    Optional<Pizza> findCurrentById(Long id);
     
     /**
      * Trova una pizza per nome
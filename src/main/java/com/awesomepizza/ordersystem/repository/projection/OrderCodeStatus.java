@@ -0,0 +1,16 @@
+package com.awesomepizza.ordersystem.repository.projection;
+
+import com.awesomepizza.ordersystem.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Codice e stato attuale di un ordine (constructor expression)
+ */
+@Getter
+@AllArgsConstructor
+public class OrderCodeStatus {
+
+    private String orderCode;
+    private OrderStatus status;
+}
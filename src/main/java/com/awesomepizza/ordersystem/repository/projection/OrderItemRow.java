@@ -0,0 +1,35 @@
+package com.awesomepizza.ordersystem.repository.projection;
+
+import com.awesomepizza.ordersystem.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Riga piatta ordine + elemento + pizza, prodotta direttamente dalla query
+ * (constructor expression) senza creare entità gestite
+ */
+@Getter
+@AllArgsConstructor
+public class OrderItemRow {
+
+    private Long orderId;
+    private String orderCode;
+    private String customerName;
+    private String customerPhone;
+    private OrderStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime takenAt;
+    private LocalDateTime completedAt;
+
+    // Campi dell'elemento, null se l'ordine non ha elementi
+    private Long itemId;
+    private Long pizzaId;
+    private String pizzaName;
+    private String pizzaDescription;
+    private BigDecimal pizzaPrice;
+    private Integer quantity;
+    private String notes;
+}
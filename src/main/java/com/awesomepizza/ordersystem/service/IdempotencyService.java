@@ -0,0 +1,22 @@
+package com.awesomepizza.ordersystem.service;
+
+import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
+import com.awesomepizza.ordersystem.dto.IdempotentOrderResult;
+import com.awesomepizza.ordersystem.exception.OrderException;
+import com.awesomepizza.ordersystem.exception.PizzaException;
+
+/**
+ * Interfaccia per il servizio di gestione delle chiavi di idempotenza
+ */
+public interface IdempotencyService {
+
+    /**
+     * Crea un ordine una sola volta per chiave di idempotenza.
+     * Le richieste ripetute con la stessa chiave ricevono la risposta originale,
+     * quelle concorrenti attendono l'esito della prima.
+     *
+     * @throws OrderException se la chiave non è valida o è stata usata per una richiesta diversa
+     */
+    IdempotentOrderResult createOrder(String idempotencyKey, CreateOrderRequest request)
+            throws OrderException, PizzaException;
+}
@@ -0,0 +1,15 @@
+package com.awesomepizza.ordersystem.service;
+
+/**
+ * Generatore dei codici ordine comunicati ai clienti.
+ *
+ * L'implementazione predefinita è {@link com.awesomepizza.ordersystem.service.impl.TimeOrderedOrderCodeGenerator};
+ * per sostituirla basta registrare un altro bean annotato con {@code @Primary}.
+ */
+public interface OrderCodeGenerator {
+
+    /**
+     * Restituisce un nuovo codice ordine, univoco senza accessi al database
+     */
+    String nextCode();
+}
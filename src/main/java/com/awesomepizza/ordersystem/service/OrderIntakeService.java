@@ -0,0 +1,31 @@
+package com.awesomepizza.ordersystem.service;
+
+import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
+import com.awesomepizza.ordersystem.dto.OrderIntakeStatus;
+import com.awesomepizza.ordersystem.exception.OrderException;
+import com.awesomepizza.ordersystem.exception.PizzaException;
+
+import java.util.Optional;
+
+/**
+ * Interfaccia per l'acquisizione asincrona degli ordini (write-behind)
+ */
+public interface OrderIntakeService {
+
+    /**
+     * Indica se la modalità asincrona è attiva (order.intake.async-enabled)
+     */
+    boolean isEnabled();
+
+    /**
+     * Valida l'ordine, gli assegna il codice e lo mette in coda di scrittura
+     *
+     * @throws OrderException ORDER_INTAKE_FULL se la coda è piena, ORDER_INTAKE_CLOSED durante lo spegnimento
+     */
+    OrderIntakeStatus submit(CreateOrderRequest request) throws OrderException, PizzaException;
+
+    /**
+     * Stato di acquisizione di un ordine, vuoto se il codice non è noto
+     */
+    Optional<OrderIntakeStatus> getStatus(String orderCode);
+}
@@ -1,6 +1,9 @@
 package com.awesomepizza.ordersystem.service;
 
+import com.awesomepizza.ordersystem.dto.BatchOrderResponse;
+import com.awesomepizza.ordersystem.dto.BatchTransitionResponse;
 import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
+import com.awesomepizza.ordersystem.dto.OrderPage;
 import com.awesomepizza.ordersystem.dto.OrderResponse;
 import com.awesomepizza.ordersystem.exception.OrderException;
 import com.awesomepizza.ordersystem.exception.PizzaException;
@@ -18,6 +21,12 @@ public interface OrderService {
      */
     OrderResponse createOrder(CreateOrderRequest request) throws OrderException, PizzaException;
 
+    /**
+     * Crea più ordini in un'unica transazione, con un esito per ciascuna richiesta.
+     * Le richieste non valide vengono scartate senza bloccare le altre.
+     */
+    BatchOrderResponse createOrders(List<CreateOrderRequest> requests);
+
     /**
      * Ottiene un ordine dal codice
      */
@@ -28,11 +37,25 @@ public interface OrderService {
      */
     List<OrderResponse> getPendingOrders();
 
+    /**
+     * Ottiene una pagina della coda degli ordini in attesa, a partire dal cursore (null per la prima)
+     *
+     * @throws OrderException se il cursore o la dimensione della pagina non sono validi
+     */
+    OrderPage getPendingOrders(String cursor, int limit);
+
     /**
      * Ottiene tutti gli ordini attivi
      */
     List<OrderResponse> getActiveOrders();
 
+    /**
+     * Ottiene una pagina degli ordini attivi, a partire dal cursore (null per la prima)
+     *
+     * @throws OrderException se il cursore o la dimensione della pagina non sono validi
+     */
+    OrderPage getActiveOrders(String cursor, int limit);
+
     /**
      * Ottiene tutti gli ordini in progress
      */
@@ -41,6 +64,13 @@ public interface OrderService {
     //Prende in carico un ordine (pizzaiolo) - THREAD-SAFE
     Optional<OrderResponse> takeOrder(String orderCode) throws OrderException;
 
+    /**
+     * Prende in carico il primo ordine in attesa non già conteso da un altro pizzaiolo
+     *
+     * @return l'ordine preso in carico, oppure vuoto se la coda è vuota
+     */
+    Optional<OrderResponse> takeNextOrder();
+
     /**
      * Segna un ordine come pronto
      *
@@ -54,4 +84,15 @@ public interface OrderService {
      * @throws PizzaException se l'ordine non è pronto
      */
     Optional<OrderResponse> completeOrder(String orderCode);
+
+    /**
+     * Segna più ordini come pronti con un solo UPDATE, con un esito per ciascun codice.
+     * Gli ordini non in preparazione o inesistenti vengono scartati senza bloccare gli altri.
+     */
+    BatchTransitionResponse markOrdersAsReady(List<String> orderCodes);
+
+    /**
+     * Completa più ordini pronti con un solo UPDATE, con un esito per ciascun codice
+     */
+    BatchTransitionResponse completeOrders(List<String> orderCodes);
 }
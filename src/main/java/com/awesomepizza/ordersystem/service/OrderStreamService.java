@@ -0,0 +1,20 @@
+package com.awesomepizza.ordersystem.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Interfaccia per il flusso SSE dei cambi di stato degli ordini (schermi della cucina)
+ */
+public interface OrderStreamService {
+
+    /**
+     * Registra un nuovo schermo: riceve subito la fotografia degli ordini attivi,
+     * poi un evento per ogni ordine creato, preso in carico, pronto o completato
+     */
+    SseEmitter subscribe();
+
+    /**
+     * Numero di schermi collegati
+     */
+    int getSubscriberCount();
+}
@@ -49,4 +49,9 @@ public interface PizzaService {
      * Conta le pizze disponibili
      */
     long countAvailablePizzas();
+
+    /**
+     * Versione corrente del menu in memoria, incrementata a ogni modifica
+     */
+    long getMenuVersion();
 }
@@ -0,0 +1,173 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.config.ReadWriteRoutingDataSource;
+import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
+import com.awesomepizza.ordersystem.dto.IdempotentOrderResult;
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.exception.OrderErrorCode;
+import com.awesomepizza.ordersystem.exception.OrderException;
+import com.awesomepizza.ordersystem.model.IdempotencyRecord;
+import com.awesomepizza.ordersystem.repository.IdempotencyRecordRepository;
+import com.awesomepizza.ordersystem.service.IdempotencyService;
+import com.awesomepizza.ordersystem.service.OrderService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Implementazione del servizio per la gestione delle chiavi di idempotenza.
+ *
+ * Le risposte sono tenute in una cache in memoria limitata e con scadenza; il database
+ * (tabella idempotency_keys) fa da riserva tra istanze diverse e dopo un riavvio.
+ * L'ordine e la sua chiave vengono salvati nella stessa transazione.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final OrderService orderService;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+
+    // Una voce per chiave: la prima richiesta completa il future, le altre lo attendono
+    private final Cache<String, InFlightRequest> requests;
+
+    public IdempotencyServiceImpl(OrderService orderService,
+                                  IdempotencyRecordRepository idempotencyRecordRepository,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${order.idempotency.ttl-hours:24}") long ttlHours,
+                                  @Value("${order.idempotency.max-entries:10000}") long maxEntries) {
+        this.orderService = orderService;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofHours(ttlHours);
+        this.requests = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    @Override
+    public IdempotentOrderResult createOrder(String idempotencyKey, CreateOrderRequest request) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new OrderException(OrderErrorCode.IDEMPOTENCY_KEY_INVALID, String.valueOf(MAX_KEY_LENGTH));
+        }
+
+        String fingerprint = OrderFingerprint.of(request);
+        InFlightRequest candidate = new InFlightRequest(fingerprint, new CompletableFuture<>());
+        InFlightRequest existing = requests.asMap().putIfAbsent(idempotencyKey, candidate);
+        if (existing != null) {
+            checkSameRequest(idempotencyKey, existing.fingerprint(), fingerprint);
+            return new IdempotentOrderResult(await(existing.response()), true);
+        }
+
+        try {
+            IdempotentOrderResult result = loadOrCreate(idempotencyKey, fingerprint, request);
+            candidate.response().complete(result.getOrder());
+            return result;
+        } catch (RuntimeException e) {
+            // Gli errori non vengono memorizzati: un nuovo tentativo con la stessa chiave riparte da zero
+            requests.asMap().remove(idempotencyKey, candidate);
+            candidate.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Elimina periodicamente dal database le chiavi scadute
+     */
+    @Scheduled(fixedDelayString = "${order.idempotency.cleanup-interval-ms:600000}")
+    public void deleteExpiredKeys() {
+        Integer deleted = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        if (deleted != null && deleted > 0) {
+            log.debug("Eliminate {} chiavi di idempotenza scadute", deleted);
+        }
+    }
+
+    private IdempotentOrderResult loadOrCreate(String idempotencyKey, String fingerprint, CreateOrderRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(idempotencyKey);
+        if (stored.isPresent() && !stored.get().isExpired(now)) {
+            return replay(idempotencyKey, fingerprint, stored.get());
+        }
+
+        try {
+            OrderResponse created = transactionTemplate.execute(status -> {
+                stored.ifPresent(expired -> idempotencyRecordRepository.deleteByKey(idempotencyKey));
+                OrderResponse response = orderService.createOrder(request);
+                idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(idempotencyKey, fingerprint,
+                        serialize(response), now, now.plus(ttl)));
+                return response;
+            });
+            return new IdempotentOrderResult(created, false);
+        } catch (DataIntegrityViolationException e) {
+            // Un'altra istanza ha registrato la stessa chiave nel frattempo: il nostro ordine è stato annullato.
+            // La chiave è appena stata scritta, quindi va letta dal primario e non da una replica
+            IdempotencyRecord winner = ReadWriteRoutingDataSource.usePrimary(
+                    () -> idempotencyRecordRepository.findById(idempotencyKey)).orElseThrow(() -> e);
+            return replay(idempotencyKey, fingerprint, winner);
+        }
+    }
+
+    private IdempotentOrderResult replay(String idempotencyKey, String fingerprint, IdempotencyRecord stored) {
+        checkSameRequest(idempotencyKey, stored.getRequestFingerprint(), fingerprint);
+        return new IdempotentOrderResult(deserialize(stored.getResponseBody()), true);
+    }
+
+    private void checkSameRequest(String idempotencyKey, String storedFingerprint, String fingerprint) {
+        if (!storedFingerprint.equals(fingerprint)) {
+            throw new OrderException(OrderErrorCode.IDEMPOTENCY_KEY_REUSED, idempotencyKey);
+        }
+    }
+
+    private OrderResponse await(CompletableFuture<OrderResponse> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private String serialize(OrderResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossibile serializzare la risposta dell'ordine", e);
+        }
+    }
+
+    private OrderResponse deserialize(String responseBody) {
+        try {
+            return objectMapper.readValue(responseBody, OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossibile leggere la risposta memorizzata dell'ordine", e);
+        }
+    }
+
+    private record InFlightRequest(String fingerprint, CompletableFuture<OrderResponse> response) {
+    }
+}
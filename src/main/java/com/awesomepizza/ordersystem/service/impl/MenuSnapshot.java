@@ -0,0 +1,85 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.model.Pizza;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Fotografia immutabile e versionata del menu delle pizze.
+ *
+ * Le pizze contenute sono copie distaccate dal contesto di persistenza:
+ * vanno trattate in sola lettura, ogni modifica passa da PizzaService che
+ * pubblica una nuova fotografia.
+ */
+final class MenuSnapshot {
+
+    private final long version;
+    private final Map<Long, Pizza> pizzasById;
+    private final Map<String, Pizza> pizzasByName;
+    private final List<Pizza> allPizzas;
+    private final List<Pizza> availablePizzas;
+
+    MenuSnapshot(long version, Collection<Pizza> pizzas) {
+        Map<Long, Pizza> byId = new HashMap<>();
+        for (Pizza pizza : pizzas) {
+            byId.put(pizza.getId(), copyOf(pizza));
+        }
+
+        List<Pizza> all = byId.values().stream()
+                .sorted(Comparator.comparing(Pizza::getId))
+                .toList();
+
+        Map<String, Pizza> byName = new HashMap<>();
+        for (Pizza pizza : all) {
+            byName.put(pizza.getName(), pizza);
+        }
+
+        this.version = version;
+        this.pizzasById = Collections.unmodifiableMap(byId);
+        this.pizzasByName = Collections.unmodifiableMap(byName);
+        this.allPizzas = all;
+        this.availablePizzas = all.stream()
+                .filter(pizza -> Boolean.TRUE.equals(pizza.getAvailable()))
+                .toList();
+    }
+
+    /**
+     * Restituisce una nuova fotografia con la pizza aggiunta o sostituita
+     */
+    MenuSnapshot withPizza(Pizza pizza) {
+        Map<Long, Pizza> pizzas = new HashMap<>(pizzasById);
+        pizzas.put(pizza.getId(), pizza);
+        return new MenuSnapshot(version + 1, pizzas.values());
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    Optional<Pizza> findById(Long id) {
+        return Optional.ofNullable(id != null ? pizzasById.get(id) : null);
+    }
+
+    Optional<Pizza> findByName(String name) {
+        return Optional.ofNullable(name != null ? pizzasByName.get(name) : null);
+    }
+
+    List<Pizza> getAllPizzas() {
+        return allPizzas;
+    }
+
+    List<Pizza> getAvailablePizzas() {
+        return availablePizzas;
+    }
+
+    static Pizza copyOf(Pizza pizza) {
+        return new Pizza(pizza.getId(), pizza.getName(), pizza.getDescription(),
+                pizza.getPrice(), pizza.getAvailable());
+    }
+}
@@ -0,0 +1,85 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Sposta nelle tabelle di archivio gli ordini completati da più di min-age-minutes.
+ *
+ * Ogni blocco (chunk-size ordini) è una transazione a sé con un solo statement, così i lock
+ * sulle tabelle attive durano poco; un giro si ferma al primo blocco non pieno o dopo
+ * max-chunks blocchi. La lettura per codice ricade sull'archivio (OrderResponseCache).
+ * L'età minima deve restare maggiore della finestra del controllo duplicati, che legge solo
+ * la tabella attiva.
+ */
+@Slf4j
+@Component
+public class OrderArchiver {
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration minAge;
+    private final int chunkSize;
+    private final int maxChunks;
+
+    private final Counter archived;
+
+    public OrderArchiver(OrderRepository orderRepository,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${order.archive.enabled:true}") boolean enabled,
+                         @Value("${order.archive.min-age-minutes:60}") long minAgeMinutes,
+                         @Value("${order.archive.chunk-size:500}") int chunkSize,
+                         @Value("${order.archive.max-chunks:20}") int maxChunks) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.minAge = Duration.ofMinutes(minAgeMinutes);
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        this.archived = meterRegistry.counter("order.archive.orders");
+    }
+
+    @Scheduled(fixedDelayString = "${order.archive.interval-ms:60000}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archiveCompleted();
+        }
+    }
+
+    /**
+     * Archivia gli ordini completati prima della soglia, un blocco per transazione
+     *
+     * @return il numero di ordini archiviati
+     */
+    public int archiveCompleted() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime completedBefore = now.minus(minAge);
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            Integer moved = transactionTemplate.execute(status ->
+                    orderRepository.archiveCompletedBefore(completedBefore, chunkSize, now));
+            int count = moved != null ? moved : 0;
+            total += count;
+            archived.increment(count);
+            if (count < chunkSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.debug("Archiviati {} ordini completati prima di {}", total, completedBefore);
+        }
+        return total;
+    }
+}
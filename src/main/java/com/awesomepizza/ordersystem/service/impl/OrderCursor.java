@@ -0,0 +1,38 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.exception.OrderErrorCode;
+import com.awesomepizza.ordersystem.exception.OrderException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursore di paginazione keyset sulla coppia (createdAt, id) dell'ultimo ordine restituito.
+ *
+ * Per il client è un token opaco (base64url), da ripassare così com'è per ottenere la pagina successiva.
+ */
+record OrderCursor(LocalDateTime createdAt, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    String encode() {
+        String value = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static OrderCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new OrderException(OrderErrorCode.INVALID_CURSOR);
+            }
+            return new OrderCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.valueOf(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new OrderException(OrderErrorCode.INVALID_CURSOR);
+        }
+    }
+}
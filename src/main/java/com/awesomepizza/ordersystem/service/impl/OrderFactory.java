@@ -0,0 +1,67 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
+import com.awesomepizza.ordersystem.dto.OrderItemRequest;
+import com.awesomepizza.ordersystem.exception.OrderErrorCode;
+import com.awesomepizza.ordersystem.exception.OrderException;
+import com.awesomepizza.ordersystem.exception.PizzaErrorCode;
+import com.awesomepizza.ordersystem.exception.PizzaException;
+import com.awesomepizza.ordersystem.model.Order;
+import com.awesomepizza.ordersystem.model.OrderItem;
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.service.OrderCodeGenerator;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Costruzione di nuovi ordini (non ancora salvati), condivisa tra creazione sincrona e acquisizione asincrona
+ */
+@Component
+public class OrderFactory {
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private OrderCodeGenerator orderCodeGenerator;
+
+    /**
+     * Costruisce un nuovo ordine validando gli elementi sul menu in memoria, senza accessi al database
+     */
+    public Order build(CreateOrderRequest request, String fingerprint) {
+        Order order = new Order();
+
+        // Aggiungi gli elementi all'ordine
+        for (OrderItemRequest itemRequest : request.getItems()) {
+            Optional<Pizza> pizzaOpt = pizzaService.getPizzaById(itemRequest.getPizzaId());
+            if (pizzaOpt.isEmpty()) {
+                throw new PizzaException(PizzaErrorCode.PIZZA_NOT_FOUND, String.valueOf(itemRequest.getPizzaId()));
+            }
+
+            Pizza pizza = pizzaOpt.get();
+            if (!pizza.getAvailable()) {
+                throw new PizzaException(PizzaErrorCode.PIZZA_NOT_AVAILABLE, pizza.getName());
+            }
+
+            if (itemRequest.getQuantity() == null || itemRequest.getQuantity() <= 0) {
+                throw new OrderException(OrderErrorCode.INVALID_QUANTITY,
+                    itemRequest.getQuantity() != null ? itemRequest.getQuantity().toString() : "null");
+            }
+
+            OrderItem orderItem = new OrderItem();
+            orderItem.setPizza(pizza);
+            orderItem.setQuantity(itemRequest.getQuantity());
+            orderItem.setNotes(itemRequest.getNotes());
+            order.addItem(orderItem);
+        }
+        // Imposto codice e dettagli del cliente
+        order.setOrderCode(orderCodeGenerator.nextCode());
+        order.setCustomerName(request.getCustomerName());
+        order.setCustomerPhone(request.getCustomerPhone());
+        order.setFingerprint(fingerprint);
+        return order;
+    }
+}
@@ -0,0 +1,82 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
+import com.awesomepizza.ordersystem.dto.OrderItemRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Impronta canonica di un ordine, usata per riconoscere gli ordini duplicati.
+ *
+ * L'impronta è lo SHA-256 di nome e telefono del cliente e del multinsieme ordinato
+ * degli elementi (pizzaId, quantità, note normalizzate): due richieste con gli stessi
+ * elementi in ordine diverso producono la stessa impronta.
+ */
+public final class OrderFingerprint {
+
+    private static final Comparator<ItemKey> ITEM_ORDER = Comparator
+            .comparing(ItemKey::pizzaId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ItemKey::quantity, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ItemKey::notes, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private OrderFingerprint() {
+    }
+
+    public static String of(CreateOrderRequest request) {
+        List<OrderItemRequest> items = request.getItems() != null ? request.getItems() : List.of();
+
+        StringBuilder canonical = new StringBuilder(64 + items.size() * 24);
+        append(canonical, normalizeName(request.getCustomerName()));
+        append(canonical, normalizePhone(request.getCustomerPhone()));
+        items.stream()
+                .map(item -> new ItemKey(item.getPizzaId(), item.getQuantity(), normalizeNotes(item.getNotes())))
+                .sorted(ITEM_ORDER)
+                .forEach(item -> {
+                    append(canonical, String.valueOf(item.pizzaId()));
+                    append(canonical, String.valueOf(item.quantity()));
+                    append(canonical, item.notes());
+                });
+
+        return sha256(canonical.toString());
+    }
+
+    // Ogni campo è preceduto dalla sua lunghezza, così i separatori non sono ambigui
+    // e null resta distinto dalla stringa vuota
+    private static void append(StringBuilder canonical, String value) {
+        if (value == null) {
+            canonical.append("-1:");
+        } else {
+            canonical.append(value.length()).append(':').append(value);
+        }
+    }
+
+    private static String normalizeName(String name) {
+        return name != null ? name.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static String normalizePhone(String phone) {
+        return phone != null ? phone.replaceAll("\\s+", "") : null;
+    }
+
+    private static String normalizeNotes(String notes) {
+        return notes != null ? notes.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+
+    private record ItemKey(Long pizzaId, Integer quantity, String notes) {
+    }
+}
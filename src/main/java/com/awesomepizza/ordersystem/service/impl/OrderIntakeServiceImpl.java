@@ -0,0 +1,274 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
+import com.awesomepizza.ordersystem.dto.OrderIntakeStatus;
+import com.awesomepizza.ordersystem.event.OrderEvent;
+import com.awesomepizza.ordersystem.exception.OrderErrorCode;
+import com.awesomepizza.ordersystem.exception.OrderException;
+import com.awesomepizza.ordersystem.model.Order;
+import com.awesomepizza.ordersystem.repository.OrderRepository;
+import com.awesomepizza.ordersystem.service.OrderIntakeService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Implementazione dell'acquisizione asincrona degli ordini.
+ *
+ * La richiesta viene validata sul menu in memoria e l'ordine riceve subito il codice; poi entra in una
+ * coda limitata. Un unico thread di scrittura svuota la coda a blocchi e li salva con una transazione
+ * per blocco (INSERT multi-riga grazie al batch JDBC). Se la coda è piena la richiesta viene respinta
+ * (503) invece di accumulare memoria. Un ordine accettato resta visibile solo come stato di acquisizione
+ * finché il suo blocco non è stato salvato; se il salvataggio fallisce la sua impronta viene rimossa,
+ * così il cliente può ripeterlo senza che sia scambiato per un duplicato.
+ */
+@Slf4j
+@Service
+public class OrderIntakeServiceImpl implements OrderIntakeService {
+
+    private final OrderFactory orderFactory;
+    private final OrderRepository orderRepository;
+    private final RecentOrderFingerprints recentOrderFingerprints;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderOutbox orderOutbox;
+    private final RecentOrderWrites recentOrderWrites;
+    private final QueueReadCoalescer queueReadCoalescer;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long lingerMillis;
+
+    private final BlockingQueue<Order> buffer;
+    private final Cache<String, OrderIntakeStatus> statuses;
+
+    // Le richieste accodano sotto il lock di lettura; lo spegnimento chiude l'acquisizione sotto quello
+    // di scrittura, così dopo la chiusura nessun ordine può entrare in una coda già svuotata
+    private final ReadWriteLock intakeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public OrderIntakeServiceImpl(OrderFactory orderFactory,
+                                  OrderRepository orderRepository,
+                                  RecentOrderFingerprints recentOrderFingerprints,
+                                  ApplicationEventPublisher eventPublisher,
+                                  OrderOutbox orderOutbox,
+                                  RecentOrderWrites recentOrderWrites,
+                                  QueueReadCoalescer queueReadCoalescer,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${order.intake.async-enabled:false}") boolean enabled,
+                                  @Value("${order.intake.buffer-size:10000}") int bufferSize,
+                                  @Value("${order.intake.batch-size:200}") int batchSize,
+                                  @Value("${order.intake.linger-ms:10}") long lingerMillis,
+                                  @Value("${order.intake.status-ttl-minutes:10}") long statusTtlMinutes,
+                                  @Value("${order.intake.status-max-entries:100000}") long statusMaxEntries) {
+        this.orderFactory = orderFactory;
+        this.orderRepository = orderRepository;
+        this.recentOrderFingerprints = recentOrderFingerprints;
+        this.eventPublisher = eventPublisher;
+        this.orderOutbox = orderOutbox;
+        this.recentOrderWrites = recentOrderWrites;
+        this.queueReadCoalescer = queueReadCoalescer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(statusTtlMinutes))
+                .maximumSize(statusMaxEntries)
+                .build();
+        Gauge.builder("order.intake.buffered", buffer, BlockingQueue::size)
+                .description("Ordini accettati in attesa di scrittura")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "order-intake-writer");
+        writer.start();
+        log.info("Acquisizione asincrona degli ordini attiva (blocchi da {})", batchSize);
+    }
+
+    /**
+     * Allo spegnimento non si accettano più ordini; il thread di scrittura salva quelli ancora in coda
+     * e poi termina. Non viene interrotto: un'interruzione a metà blocco farebbe fallire ordini
+     * a cui è già stato risposto 202
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        intakeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            intakeLock.writeLock().unlock();
+        }
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (writer.isAlive()) {
+            log.error("Thread di scrittura degli ordini non terminato: {} ordini ancora in coda", buffer.size());
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public OrderIntakeStatus submit(CreateOrderRequest request) {
+        if (!enabled) {
+            throw new IllegalStateException("Acquisizione asincrona degli ordini non attiva");
+        }
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new OrderException(OrderErrorCode.ORDER_EMPTY);
+        }
+
+        // Solo il controllo duplicati in memoria: nessun accesso al database sul percorso della richiesta
+        String fingerprint = OrderFingerprint.of(request);
+        if (recentOrderFingerprints.contains(fingerprint)) {
+            throw new OrderException(OrderErrorCode.ORDER_DUPLICATE);
+        }
+
+        Order order = orderFactory.build(request, fingerprint);
+        OrderIntakeStatus status = new OrderIntakeStatus(order.getOrderCode(), OrderIntakeStatus.State.ACCEPTED,
+                order.getCreatedAt(), null, null);
+        intakeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new OrderException(OrderErrorCode.ORDER_INTAKE_CLOSED);
+            }
+            // Impronta registrata prima di accodare: se il salvataggio fallisce il thread di scrittura la rimuove
+            statuses.put(order.getOrderCode(), status);
+            recentOrderFingerprints.register(fingerprint);
+            if (!buffer.offer(order)) {
+                statuses.invalidate(order.getOrderCode());
+                recentOrderFingerprints.unregister(fingerprint);
+                throw new OrderException(OrderErrorCode.ORDER_INTAKE_FULL);
+            }
+        } finally {
+            intakeLock.readLock().unlock();
+        }
+        // Il salvataggio avviene dopo la risposta, sul thread di scrittura: il cookie read-your-writes parte da qui
+        recentOrderWrites.markClient(order.getOrderCode());
+        return status;
+    }
+
+    @Override
+    public Optional<OrderIntakeStatus> getStatus(String orderCode) {
+        OrderIntakeStatus status = statuses.getIfPresent(orderCode);
+        if (status != null) {
+            return Optional.of(status);
+        }
+        // Stato scaduto dalla cache, oppure ordine creato in modalità sincrona
+        if (orderRepository.existsByOrderCode(orderCode)) {
+            return Optional.of(new OrderIntakeStatus(orderCode, OrderIntakeStatus.State.PERSISTED, null, null, null));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Dopo lo stop il ciclo continua finché la coda non è vuota
+     */
+    private void drainLoop() {
+        List<Order> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                Order first = buffer.poll(lingerMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                persist(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Errore imprevisto nel thread di scrittura degli ordini", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Salva un blocco in una transazione; se fallisce, riprova ordine per ordine
+     * così un solo ordine non valido non fa perdere gli altri
+     */
+    private void persist(List<Order> batch) {
+        try {
+            saveAll(batch);
+        } catch (RuntimeException e) {
+            log.warn("Scrittura del blocco di {} ordini fallita, nuovo tentativo ordine per ordine", batch.size(), e);
+            for (Order order : batch) {
+                resetIdentity(order);
+                try {
+                    saveAll(List.of(order));
+                } catch (RuntimeException single) {
+                    log.error("Ordine {} non salvato", order.getOrderCode(), single);
+                    recentOrderFingerprints.unregister(order.getFingerprint());
+                    statuses.put(order.getOrderCode(), new OrderIntakeStatus(order.getOrderCode(),
+                            OrderIntakeStatus.State.FAILED, order.getCreatedAt(), null, single.getMessage()));
+                }
+            }
+        }
+    }
+
+    private void saveAll(List<Order> orders) {
+        transactionTemplate.executeWithoutResult(status -> {
+            orderRepository.saveAll(orders);
+            for (Order order : orders) {
+                OrderEvent event = new OrderEvent(OrderEvent.Type.CREATED, OrderResponseMapper.toResponse(order));
+                orderOutbox.append(event);
+                recentOrderWrites.register(order.getOrderCode());
+                eventPublisher.publishEvent(event);
+            }
+        });
+        queueReadCoalescer.invalidate();
+        LocalDateTime persistedAt = LocalDateTime.now();
+        for (Order order : orders) {
+            statuses.put(order.getOrderCode(), new OrderIntakeStatus(order.getOrderCode(),
+                    OrderIntakeStatus.State.PERSISTED, order.getCreatedAt(), persistedAt, null));
+        }
+    }
+
+    /**
+     * Dopo un rollback l'ordine ha già id e versione assegnati: vanno azzerati
+     * perché il nuovo tentativo sia un INSERT e non un merge
+     */
+    private static void resetIdentity(Order order) {
+        order.setId(null);
+        order.setVersion(null);
+        order.getItems().forEach(item -> item.setId(null));
+    }
+}
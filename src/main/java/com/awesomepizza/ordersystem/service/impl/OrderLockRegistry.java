@@ -0,0 +1,124 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.exception.OrderErrorCode;
+import com.awesomepizza.ordersystem.exception.OrderException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Lock in memoria per codice ordine, a strisce: un numero fisso di strisce, ciascuna con un
+ * ReentrantLock e l'insieme dei codici attualmente in uso, quindi memoria limitata dal numero
+ * di transizioni in corso e nessuna pulizia necessaria.
+ *
+ * Il lock della striscia protegge solo l'insieme (pochi nanosecondi), mai la transizione: due ordini
+ * diversi sulla stessa striscia non si attendono. Le richieste concorrenti sullo stesso ordine
+ * (es. doppio tocco su "prendi") attendono qui, con un timeout breve, prima di aprire la transazione
+ * e chiedere una connessione a Hikari.
+ * Niente synchronized, così i thread virtuali non restano agganciati al carrier durante l'attesa.
+ */
+@Component
+public class OrderLockRegistry {
+
+    static final String METRIC_NAME = "order.lock.acquisitions";
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final long timeoutNanos;
+
+    private final Counter immediate;
+    private final Counter contended;
+    private final Counter timedOut;
+
+    public OrderLockRegistry(MeterRegistry meterRegistry,
+                             @Value("${order.lock.stripes:256}") int stripes,
+                             @Value("${order.lock.timeout-ms:200}") long timeoutMillis) {
+        // Arrotondato alla potenza di due successiva, per calcolare la striscia con una maschera
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.immediate = counter(meterRegistry, "immediate", "Lock ottenuto senza attesa");
+        this.contended = counter(meterRegistry, "contended", "Lock ottenuto dopo un'attesa");
+        this.timedOut = counter(meterRegistry, "timeout", "Lock non ottenuto entro il timeout");
+    }
+
+    /**
+     * Esegue l'azione tenendo il lock dell'ordine (non rientrante)
+     *
+     * @throws OrderException ORDER_LOCKED se l'ordine non si libera entro il timeout
+     */
+    public <T> T withLock(String orderCode, Supplier<T> action) {
+        Stripe stripe = stripeFor(orderCode);
+        stripe.acquire(orderCode);
+        try {
+            return action.get();
+        } finally {
+            stripe.release(orderCode);
+        }
+    }
+
+    private Stripe stripeFor(String orderCode) {
+        int hash = orderCode.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome, String description) {
+        return Counter.builder(METRIC_NAME)
+                .tag("outcome", outcome)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    private final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition released = lock.newCondition();
+        private final Set<String> inUse = new HashSet<>();
+
+        void acquire(String orderCode) {
+            lock.lock();
+            try {
+                if (inUse.add(orderCode)) {
+                    immediate.increment();
+                    return;
+                }
+                long remaining = timeoutNanos;
+                while (remaining > 0) {
+                    remaining = released.awaitNanos(remaining);
+                    if (inUse.add(orderCode)) {
+                        contended.increment();
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+            timedOut.increment();
+            throw new OrderException(OrderErrorCode.ORDER_LOCKED, orderCode);
+        }
+
+        void release(String orderCode) {
+            lock.lock();
+            try {
+                inUse.remove(orderCode);
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.event.OrderEvent;
+import com.awesomepizza.ordersystem.model.OrderOutboxEvent;
+import com.awesomepizza.ordersystem.repository.OrderOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Scrittura degli eventi nella tabella outbox.
+ *
+ * Richiede una transazione già aperta: l'evento esiste se e solo se il cambio di stato
+ * che lo ha prodotto è stato salvato. Gli INSERT vengono raggruppati nel batch JDBC al flush.
+ */
+@Component
+public class OrderOutbox {
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public OrderOutbox(OrderOutboxRepository orderOutboxRepository, ObjectMapper objectMapper) {
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(OrderEvent event) {
+        orderOutboxRepository.save(new OrderOutboxEvent(event.getOrder().getOrderCode(), event.getType(),
+                serialize(event), LocalDateTime.now()));
+    }
+
+    private String serialize(OrderEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event.getOrder());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossibile serializzare l'evento dell'ordine", e);
+        }
+    }
+}
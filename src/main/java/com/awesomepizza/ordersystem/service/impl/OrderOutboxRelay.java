@@ -0,0 +1,173 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.event.OrderEvent;
+import com.awesomepizza.ordersystem.event.OrderEventSubscriber;
+import com.awesomepizza.ordersystem.model.OrderOutboxEvent;
+import com.awesomepizza.ordersystem.repository.OrderOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consegna degli eventi dell'outbox ai destinatari in-process ({@link OrderEventSubscriber}).
+ *
+ * Ogni giro blocca un blocco di eventi con SKIP LOCKED, al massimo uno per ordine (il primo del suo
+ * ciclo di vita ancora da consegnare), li consegna e segna come consegnati quelli andati a buon fine,
+ * nella stessa transazione. Un evento fallito viene ritentato al giro successivo (consegna almeno una
+ * volta) e fino ad allora trattiene solo gli eventi successivi dello stesso ordine; gli altri ordini
+ * proseguono. Dopo max-attempts tentativi l'evento viene scartato (discarded_at): resta in tabella con
+ * l'ultimo errore, distinto da quelli consegnati, e la pulizia degli eventi consegnati non lo elimina.
+ */
+@Slf4j
+@Component
+public class OrderOutboxRelay {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final ObjectProvider<OrderEventSubscriber> subscribers;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retention;
+
+    private final Counter relayed;
+    private final Counter failed;
+    private final Counter discarded;
+
+    public OrderOutboxRelay(OrderOutboxRepository orderOutboxRepository,
+                            ObjectProvider<OrderEventSubscriber> subscribers,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${order.outbox.relay-enabled:true}") boolean enabled,
+                            @Value("${order.outbox.batch-size:100}") int batchSize,
+                            @Value("${order.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${order.outbox.retention-hours:24}") long retentionHours) {
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.subscribers = subscribers;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retention = Duration.ofHours(retentionHours);
+        this.relayed = meterRegistry.counter("order.outbox.events", "outcome", "relayed");
+        this.failed = meterRegistry.counter("order.outbox.events", "outcome", "failed");
+        this.discarded = meterRegistry.counter("order.outbox.events", "outcome", "discarded");
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:500}")
+    public void scheduledRelay() {
+        if (enabled) {
+            relayPending();
+        }
+    }
+
+    /**
+     * Consegna gli eventi in attesa, un blocco per transazione, finché ce ne sono da consegnare
+     *
+     * @return il numero di eventi segnati come consegnati
+     */
+    public int relayPending() {
+        int total = 0;
+        while (true) {
+            BatchResult result = transactionTemplate.execute(status -> relayBatch());
+            if (result == null) {
+                return total;
+            }
+            total += result.processed();
+            // Si continua finché si consegna o si scarta qualcosa: i blocchi successivi contengono anche gli
+            // eventi seguenti di quegli ordini. Dopo un errore si attende il prossimo giro, invece di
+            // ritentare subito lo stesso evento
+            if (result.processed() + result.discarded() == 0 || result.failed() > 0) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * Elimina periodicamente gli eventi già consegnati
+     */
+    @Scheduled(fixedDelayString = "${order.outbox.cleanup-interval-ms:600000}")
+    public void deleteProcessedEvents() {
+        Integer deleted = transactionTemplate.execute(status ->
+                orderOutboxRepository.deleteProcessedBefore(LocalDateTime.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.debug("Eliminati {} eventi consegnati dall'outbox", deleted);
+        }
+    }
+
+    private BatchResult relayBatch() {
+        List<OrderOutboxEvent> events = orderOutboxRepository.lockNextBatch(batchSize);
+        if (events.isEmpty()) {
+            return new BatchResult(0, 0, 0);
+        }
+
+        List<Long> processed = new ArrayList<>(events.size());
+        int discards = 0;
+        int failures = 0;
+        for (OrderOutboxEvent event : events) {
+            try {
+                deliver(event);
+                processed.add(event.getId());
+                relayed.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+                if (event.getAttempts() + 1 >= maxAttempts) {
+                    log.error("Evento {} ({} {}) scartato dopo {} tentativi", event.getId(), event.getEventType(),
+                            event.getOrderCode(), maxAttempts, e);
+                    orderOutboxRepository.markDiscarded(event.getId(), truncate(e.toString()), LocalDateTime.now());
+                    discards++;
+                    discarded.increment();
+                    continue;
+                }
+                log.warn("Consegna dell'evento {} ({} {}) fallita, nuovo tentativo al prossimo giro",
+                        event.getId(), event.getEventType(), event.getOrderCode(), e);
+                orderOutboxRepository.markFailed(event.getId(), truncate(e.toString()));
+                failures++;
+            }
+        }
+
+        if (!processed.isEmpty()) {
+            orderOutboxRepository.markProcessed(processed, LocalDateTime.now());
+        }
+        return new BatchResult(processed.size(), discards, failures);
+    }
+
+    private void deliver(OrderOutboxEvent outboxEvent) {
+        OrderEvent event = new OrderEvent(outboxEvent.getEventType(), deserialize(outboxEvent.getPayload()));
+        subscribers.orderedStream().forEach(subscriber -> subscriber.onOrderEvent(outboxEvent.getId(), event));
+    }
+
+    private OrderResponse deserialize(String payload) {
+        try {
+            return objectMapper.readValue(payload, OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossibile leggere l'evento dell'ordine", e);
+        }
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private record BatchResult(int processed, int discarded, int failed) {
+    }
+}
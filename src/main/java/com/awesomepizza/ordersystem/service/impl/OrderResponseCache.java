@@ -0,0 +1,95 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.repository.OrderRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Cache in memoria delle risposte per codice ordine, per il polling dei clienti.
+ *
+ * Limitata per numero di voci e con scadenza: la scadenza limita quanto restano vecchie le voci
+ * di ordini cambiati da altre istanze, mentre i cambi di stato fatti da questa istanza aggiornano
+ * la voce subito dopo il commit. Richieste concorrenti per lo stesso codice non in cache
+ * attendono un solo caricamento. Gli ordini inesistenti non vengono memorizzati; quelli archiviati
+ * vengono letti dalle tabelle di archivio.
+ */
+@Component
+public class OrderResponseCache {
+
+    static final String CACHE_NAME = "order.responses";
+
+    private final OrderRepository orderRepository;
+    private final RecentOrderWrites recentOrderWrites;
+    private final TransactionTemplate readOnlyTransaction;
+    private final LoadingCache<String, OrderResponse> responses;
+
+    public OrderResponseCache(OrderRepository orderRepository,
+                              RecentOrderWrites recentOrderWrites,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${order.cache.max-entries:10000}") long maxEntries,
+                              @Value("${order.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.orderRepository = orderRepository;
+        this.recentOrderWrites = recentOrderWrites;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build(this::load);
+        // cache.gets (hit/miss), cache.evictions, cache.load e cache.load.duration
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, CACHE_NAME);
+    }
+
+    /**
+     * Risposta in cache oppure caricata dal database e memorizzata
+     */
+    public Optional<OrderResponse> get(String orderCode) {
+        return Optional.ofNullable(responses.get(orderCode));
+    }
+
+    public void invalidate(String orderCode) {
+        responses.invalidate(orderCode);
+    }
+
+    /**
+     * Memorizza lo stato più recente dell'ordine. Gli stati avanzano sempre nello stesso verso,
+     * quindi un aggiornamento arrivato in ritardo non sostituisce uno stato successivo.
+     */
+    public void update(OrderResponse order) {
+        responses.asMap().merge(order.getOrderCode(), order, (cached, updated) ->
+                updated.getStatus().ordinal() >= cached.getStatus().ordinal() ? updated : cached);
+    }
+
+    /**
+     * Caricamento in una transazione in sola lettura: va sulle repliche, tranne subito dopo
+     * una scrittura dello stesso ordine. Un ordine assente dalla tabella attiva viene cercato
+     * nell'archivio (gli ordini passano solo dalla prima al secondo, mai al contrario).
+     */
+    private OrderResponse load(String orderCode) {
+        return recentOrderWrites.read(orderCode, () -> readOnlyTransaction.execute(status ->
+                orderRepository.findWithItemsByOrderCode(orderCode).map(OrderResponseMapper::toResponse)
+                        .or(() -> loadArchived(orderCode))
+                        .orElse(null)));
+    }
+
+    private Optional<OrderResponse> loadArchived(String orderCode) {
+        return OrderResponseMapper.fromRows(orderRepository.findArchivedByOrderCode(orderCode)).stream().findFirst();
+    }
+
+    CacheStats stats() {
+        return responses.stats();
+    }
+}
@@ -0,0 +1,94 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.dto.OrderItemResponse;
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.model.Order;
+import com.awesomepizza.ordersystem.model.OrderItem;
+import com.awesomepizza.ordersystem.repository.projection.OrderItemRow;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversione di ordini (entità o righe di proiezione) nei DTO di risposta
+ */
+public final class OrderResponseMapper {
+
+    private OrderResponseMapper() {
+    }
+
+    public static OrderResponse toResponse(Order order) {
+        OrderResponse response = new OrderResponse();
+        response.setId(order.getId());
+        response.setOrderCode(order.getOrderCode());
+        response.setCustomerName(order.getCustomerName());
+        response.setCustomerPhone(order.getCustomerPhone());
+        response.setStatus(order.getStatus());
+        response.setCreatedAt(order.getCreatedAt());
+        response.setTakenAt(order.getTakenAt());
+        response.setCompletedAt(order.getCompletedAt());
+
+        List<OrderItemResponse> itemResponses = new ArrayList<>(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            itemResponses.add(toItemResponse(item));
+        }
+        response.setItems(itemResponses);
+
+        return response;
+    }
+
+    public static OrderItemResponse toItemResponse(OrderItem item) {
+        OrderItemResponse response = new OrderItemResponse();
+        response.setId(item.getId());
+        response.setPizzaId(item.getPizza().getId());
+        response.setPizzaName(item.getPizza().getName());
+        response.setPizzaDescription(item.getPizza().getDescription());
+        response.setPizzaPrice(item.getPizza().getPrice());
+        response.setQuantity(item.getQuantity());
+        response.setNotes(item.getNotes());
+        return response;
+    }
+
+    /**
+     * Raggruppa le righe piatte (già ordinate per ordine) in una risposta per ordine,
+     * mantenendo l'ordinamento della query
+     */
+    public static List<OrderResponse> fromRows(List<OrderItemRow> rows) {
+        Map<Long, OrderResponse> responses = new LinkedHashMap<>();
+        for (OrderItemRow row : rows) {
+            OrderResponse response = responses.computeIfAbsent(row.getOrderId(), id -> toResponse(row));
+            if (row.getItemId() != null) {
+                response.getItems().add(toItemResponse(row));
+            }
+        }
+        return new ArrayList<>(responses.values());
+    }
+
+    private static OrderResponse toResponse(OrderItemRow row) {
+        OrderResponse response = new OrderResponse();
+        response.setId(row.getOrderId());
+        response.setOrderCode(row.getOrderCode());
+        response.setCustomerName(row.getCustomerName());
+        response.setCustomerPhone(row.getCustomerPhone());
+        response.setStatus(row.getStatus());
+        response.setCreatedAt(row.getCreatedAt());
+        response.setTakenAt(row.getTakenAt());
+        response.setCompletedAt(row.getCompletedAt());
+        response.setItems(new ArrayList<>());
+        return response;
+    }
+
+    private static OrderItemResponse toItemResponse(OrderItemRow row) {
+        OrderItemResponse response = new OrderItemResponse();
+        response.setId(row.getItemId());
+        response.setPizzaId(row.getPizzaId());
+        response.setPizzaName(row.getPizzaName());
+        response.setPizzaDescription(row.getPizzaDescription());
+        response.setPizzaPrice(row.getPizzaPrice());
+        response.setQuantity(row.getQuantity());
+        response.setNotes(row.getNotes());
+        return response;
+    }
+}
@@ -1,27 +1,45 @@
 package com.awesomepizza.ordersystem.service.impl;
 
+import com.awesomepizza.ordersystem.dto.BatchOrderResponse;
+import com.awesomepizza.ordersystem.dto.BatchOrderResult;
+import com.awesomepizza.ordersystem.dto.BatchTransitionResponse;
+import com.awesomepizza.ordersystem.dto.BatchTransitionResult;
 import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
-import com.awesomepizza.ordersystem.dto.OrderItemRequest;
-import com.awesomepizza.ordersystem.dto.OrderItemResponse;
+import com.awesomepizza.ordersystem.dto.OrderPage;
 import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.event.OrderEvent;
 import com.awesomepizza.ordersystem.exception.OrderErrorCode;
 import com.awesomepizza.ordersystem.exception.OrderException;
-import com.awesomepizza.ordersystem.exception.PizzaErrorCode;
 import com.awesomepizza.ordersystem.exception.PizzaException;
 import com.awesomepizza.ordersystem.model.Order;
-import com.awesomepizza.ordersystem.model.OrderItem;
 import com.awesomepizza.ordersystem.model.OrderStatus;
-import com.awesomepizza.ordersystem.model.Pizza;
 import com.awesomepizza.ordersystem.repository.OrderRepository;
+import com.awesomepizza.ordersystem.repository.projection.OrderCodeStatus;
+import com.awesomepizza.ordersystem.repository.projection.OrderItemRow;
 import com.awesomepizza.ordersystem.service.OrderService;
-import com.awesomepizza.ordersystem.service.PizzaService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -31,211 +49,445 @@ import java.util.stream.Collectors;
 @Transactional
 public class OrderServiceImpl implements OrderService {
 
+    private static final String VALIDATION_ERROR = "VALIDATION_ERROR";
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
-    private PizzaService pizzaService;
+    private OrderFactory orderFactory;
+
+    @Autowired
+    private RecentOrderFingerprints recentOrderFingerprints;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private OrderLockRegistry orderLockRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderOutbox orderOutbox;
+
+    @Autowired
+    private RecentOrderWrites recentOrderWrites;
+
+    @Autowired
+    private OrderResponseCache orderResponseCache;
+
+    @Autowired
+    private QueueReadCoalescer queueReadCoalescer;
+
+    @Value("${order.duplicate-check.window-minutes:5}")
+    private long duplicateWindowMinutes;
+
+    @Value("${order.queue.max-page-size:200}")
+    private int maxPageSize;
 
     @Override
     public OrderResponse createOrder(CreateOrderRequest request) {
-        Order order = new Order();
-
         // Validazione lista vuota
         if (request.getItems() == null || request.getItems().isEmpty()) {
             throw new OrderException(OrderErrorCode.ORDER_EMPTY);
         }
 
-        if (isDuplicateOrder(request)) {
+        String fingerprint = OrderFingerprint.of(request);
+        if (isDuplicateOrder(fingerprint)) {
             throw new OrderException(OrderErrorCode.ORDER_DUPLICATE);
         }
 
-        // Aggiungi gli elementi all'ordine
-        for (OrderItemRequest itemRequest : request.getItems()) {
-            Optional<Pizza> pizzaOpt = pizzaService.getPizzaById(itemRequest.getPizzaId());
-            if (pizzaOpt.isEmpty()) {
-                throw new PizzaException(PizzaErrorCode.PIZZA_NOT_FOUND, itemRequest.getPizzaId().toString());
+        Order order = orderFactory.build(request, fingerprint);
+        Order savedOrder = orderRepository.save(order);
+        registerFingerprintAfterCommit(fingerprint);
+        return publish(OrderEvent.Type.CREATED, OrderResponseMapper.toResponse(savedOrder));
+    }
+
+    @Override
+    public BatchOrderResponse createOrders(List<CreateOrderRequest> requests) {
+        List<BatchOrderResult> results = new ArrayList<>(requests.size());
+        Map<String, Integer> fingerprintsByIndex = new LinkedHashMap<>();
+
+        // Prima passata: validazione di tutte le richieste sul menu in memoria, senza accessi al database
+        for (int index = 0; index < requests.size(); index++) {
+            CreateOrderRequest request = requests.get(index);
+            String violations = validate(request);
+            if (violations != null) {
+                results.add(BatchOrderResult.rejected(index, VALIDATION_ERROR, violations));
+                continue;
+            }
+            if (request.getItems().isEmpty()) {
+                results.add(rejected(index, new OrderException(OrderErrorCode.ORDER_EMPTY)));
+                continue;
             }
 
-            Pizza pizza = pizzaOpt.get();
-            if (!pizza.getAvailable()) {
-                throw new PizzaException(PizzaErrorCode.PIZZA_NOT_AVAILABLE, pizza.getName());
+            String fingerprint = OrderFingerprint.of(request);
+            if (fingerprintsByIndex.containsKey(fingerprint) || recentOrderFingerprints.contains(fingerprint)) {
+                results.add(rejected(index, new OrderException(OrderErrorCode.ORDER_DUPLICATE)));
+                continue;
             }
+            fingerprintsByIndex.put(fingerprint, index);
+            results.add(null);
+        }
 
-            if (itemRequest.getQuantity() == null || itemRequest.getQuantity() <= 0) {
-                throw new OrderException(OrderErrorCode.INVALID_QUANTITY, 
-                    itemRequest.getQuantity() != null ? itemRequest.getQuantity().toString() : "null");
+        // Un solo controllo duplicati sul database per tutto il batch
+        if (!fingerprintsByIndex.isEmpty()) {
+            LocalDateTime windowStart = LocalDateTime.now().minusMinutes(duplicateWindowMinutes);
+            for (String duplicate : orderRepository.findRecentFingerprints(fingerprintsByIndex.keySet(), windowStart)) {
+                int index = fingerprintsByIndex.remove(duplicate);
+                results.set(index, rejected(index, new OrderException(OrderErrorCode.ORDER_DUPLICATE)));
             }
+        }
 
-            OrderItem orderItem = new OrderItem();
-            orderItem.setPizza(pizza);
-            orderItem.setQuantity(itemRequest.getQuantity());
-            orderItem.setNotes(itemRequest.getNotes());
-            order.addItem(orderItem);
+        List<Order> orders = new ArrayList<>(fingerprintsByIndex.size());
+        for (Map.Entry<String, Integer> entry : fingerprintsByIndex.entrySet()) {
+            int index = entry.getValue();
+            try {
+                Order order = orderFactory.build(requests.get(index), entry.getKey());
+                orders.add(order);
+                results.set(index, BatchOrderResult.created(index, order.getOrderCode()));
+            } catch (OrderException e) {
+                results.set(index, rejected(index, e));
+            } catch (PizzaException e) {
+                results.set(index, BatchOrderResult.rejected(index, e.getPizzaErrorCode().name(), e.getMessage()));
+            }
         }
-        // Imposto i dettagli del cliente
-        order.setCustomerName(request.getCustomerName());
-        order.setCustomerPhone(request.getCustomerPhone());
-        Order savedOrder = orderRepository.save(order);
-        return convertToResponse(savedOrder);
+
+        // Tutti gli ordini validi in una transazione, con INSERT a batch
+        orderRepository.saveAll(orders);
+        for (Order order : orders) {
+            registerFingerprintAfterCommit(order.getFingerprint());
+            publish(OrderEvent.Type.CREATED, OrderResponseMapper.toResponse(order));
+        }
+
+        return new BatchOrderResponse(orders.size(), requests.size() - orders.size(), results);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<OrderResponse> getOrderByCode(String orderCode) {
-        return orderRepository.findByOrderCode(orderCode)
-                .map(this::convertToResponse);
+        // Le risposte in cache non aprono transazioni
+        return orderResponseCache.get(orderCode);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderResponse> getPendingOrders() {
-        return orderRepository.findByStatusOrderByCreatedAtAsc(OrderStatus.PENDING)
-                .stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return loadOrders(orderRepository.findIdsByStatus(OrderStatus.PENDING, Limit.unlimited()));
+    }
+
+    /*
+     * Le pagine di coda e ordini attivi sono condivise tra le richieste concorrenti (schermi della cucina):
+     * il caricamento apre la propria transazione in sola lettura, chi attende non ne apre.
+     */
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public OrderPage getPendingOrders(String cursor, int limit) {
+        checkPageSize(limit);
+        OrderCursor after = decodeCursor(cursor);
+        // Un id in più del richiesto per sapere se esiste una pagina successiva
+        Limit fetch = Limit.of(limit + 1);
+        return queueReadCoalescer.get(QueueReadCoalescer.Query.PENDING, after, limit, () -> loadPage(after == null
+                ? orderRepository.findIdsByStatus(OrderStatus.PENDING, fetch)
+                : orderRepository.findIdsByStatusAfter(OrderStatus.PENDING, after.createdAt(), after.id(), fetch), limit));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderResponse> getActiveOrders() {
-        return orderRepository.findActiveOrders()
-                .stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return loadOrders(orderRepository.findActiveOrderIds(Limit.unlimited()));
     }
 
     @Override
-    public List<OrderResponse> getInProgressOrders() {
-        return orderRepository.findInProgressOrders()
-                .stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public OrderPage getActiveOrders(String cursor, int limit) {
+        checkPageSize(limit);
+        OrderCursor after = decodeCursor(cursor);
+        Limit fetch = Limit.of(limit + 1);
+        return queueReadCoalescer.get(QueueReadCoalescer.Query.ACTIVE, after, limit, () -> loadPage(after == null
+                ? orderRepository.findActiveOrderIds(fetch)
+                : orderRepository.findActiveOrderIdsAfter(after.createdAt(), after.id(), fetch), limit));
     }
 
     @Override
-    public Optional<OrderResponse> takeOrder(String orderCode) {
-        // Usa lock pessimistico per evitare che due pizzaioli prendano lo stesso ordine
-        Optional<Order> orderOpt = orderRepository.findByOrderCodeForUpdate(orderCode);
+    @Transactional(readOnly = true)
+    public List<OrderResponse> getInProgressOrders() {
+        return loadOrders(orderRepository.findIdsByStatus(OrderStatus.IN_PROGRESS, Limit.unlimited()));
+    }
 
-        if (orderOpt.isEmpty()) {
+    @Override
+    public Optional<OrderResponse> takeNextOrder() {
+        // Nessuna attesa: le righe bloccate da altri pizzaioli vengono saltate
+        List<OrderItemRow> rows = orderRepository.claimNextPending(LocalDateTime.now());
+        if (rows.isEmpty()) {
             return Optional.empty();
         }
+        return Optional.of(publish(OrderEvent.Type.TAKEN, toResponse(rows)));
+    }
 
-        Order order = orderOpt.get();
-        if (order.getStatus() != OrderStatus.PENDING) {
-            throw new OrderException(OrderErrorCode.ORDER_ALREADY_TAKEN,
-                "L'ordine " + orderCode + " non è in attesa ma è " + order.getStatus());
-        }
+    /*
+     * Le transizioni per codice non aprono la transazione all'ingresso (SUPPORTS): prima si ottiene
+     * il lock in memoria dell'ordine, poi la transazione e la connessione. Le richieste concorrenti
+     * sullo stesso ordine attendono qui, senza occupare connessioni del pool.
+     */
 
-        order.takeOrder();
-        Order savedOrder = orderRepository.save(order);
-        return Optional.of(convertToResponse(savedOrder));
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<OrderResponse> takeOrder(String orderCode) {
+        return inTransitionLock(orderCode, () -> doTakeOrder(orderCode));
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<OrderResponse> markOrderAsReady(String orderCode) {
-        Optional<Order> orderOpt = orderRepository.findByOrderCode(orderCode);
-        if (orderOpt.isEmpty()) {
-            return Optional.empty();
+        return inTransitionLock(orderCode, () -> doMarkOrderAsReady(orderCode));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<OrderResponse> completeOrder(String orderCode) {
+        return inTransitionLock(orderCode, () -> doCompleteOrder(orderCode));
+    }
+
+    /*
+     * Le transizioni a gruppi non usano i lock in memoria per ordine: l'UPDATE condizionale basta a
+     * garantire che ogni ordine cambi stato una volta sola, e prendere molti lock insieme rischierebbe
+     * attese incrociate con altri gruppi.
+     */
+
+    @Override
+    public BatchTransitionResponse markOrdersAsReady(List<String> orderCodes) {
+        return transitionAll(orderCodes, OrderStatus.IN_PROGRESS, OrderStatus.READY, null, null,
+                OrderEvent.Type.READY, "in preparazione");
+    }
+
+    @Override
+    public BatchTransitionResponse completeOrders(List<String> orderCodes) {
+        return transitionAll(orderCodes, OrderStatus.READY, OrderStatus.COMPLETED, null, LocalDateTime.now(),
+                OrderEvent.Type.COMPLETED, "pronto");
+    }
+
+    private Optional<OrderResponse> doTakeOrder(String orderCode) {
+        // Un solo UPDATE condizionale: se due pizzaioli prendono lo stesso ordine, solo uno aggiorna la riga
+        List<OrderItemRow> rows = orderRepository.transition(orderCode, OrderStatus.PENDING, OrderStatus.IN_PROGRESS,
+                LocalDateTime.now(), null);
+        if (rows.isEmpty()) {
+            return transitionRejected(orderCode, OrderErrorCode.ORDER_ALREADY_TAKEN, "in attesa");
         }
+        return Optional.of(publish(OrderEvent.Type.TAKEN, toResponse(rows)));
+    }
 
-        Order order = orderOpt.get();
-        if (order.getStatus() != OrderStatus.IN_PROGRESS) {
-            throw new OrderException(OrderErrorCode.ORDER_INVALID_STATUS, 
-                "L'ordine " + orderCode + " non è in preparazione ma è " + order.getStatus());
+    private Optional<OrderResponse> doMarkOrderAsReady(String orderCode) {
+        List<OrderItemRow> rows = orderRepository.transition(orderCode, OrderStatus.IN_PROGRESS, OrderStatus.READY,
+                null, null);
+        if (rows.isEmpty()) {
+            return transitionRejected(orderCode, OrderErrorCode.ORDER_INVALID_STATUS, "in preparazione");
         }
+        return Optional.of(publish(OrderEvent.Type.READY, toResponse(rows)));
+    }
 
-        order.markAsReady();
-        Order savedOrder = orderRepository.save(order);
-        return Optional.of(convertToResponse(savedOrder));
+    private Optional<OrderResponse> doCompleteOrder(String orderCode) {
+        List<OrderItemRow> rows = orderRepository.transition(orderCode, OrderStatus.READY, OrderStatus.COMPLETED,
+                null, LocalDateTime.now());
+        if (rows.isEmpty()) {
+            return transitionRejected(orderCode, OrderErrorCode.ORDER_INVALID_STATUS, "pronto");
+        }
+        return Optional.of(publish(OrderEvent.Type.COMPLETED, toResponse(rows)));
     }
 
-    @Override
-    public Optional<OrderResponse> completeOrder(String orderCode) {
-        Optional<Order> orderOpt = orderRepository.findByOrderCode(orderCode);
-        if (orderOpt.isEmpty()) {
+    /**
+     * Validazione dei vincoli del DTO per una singola richiesta del batch
+     *
+     * @return i messaggi di errore, oppure null se la richiesta è valida
+     */
+    private String validate(CreateOrderRequest request) {
+        if (request == null) {
+            return "Richiesta d'ordine mancante";
+        }
+        Set<ConstraintViolation<CreateOrderRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private BatchOrderResult rejected(int index, OrderException e) {
+        return BatchOrderResult.rejected(index, e.getOrderErrorCode().name(), e.getMessage());
+    }
+
+    /**
+     * Verifica se è un ordine duplicato (stesso cliente, stessi prodotti, entro la finestra configurata).
+     * Prima l'insieme in memoria, poi una sola lettura sull'indice (fingerprint, created_at)
+     * per gli ordini creati da altre istanze o prima di un riavvio.
+     */
+    private boolean isDuplicateOrder(String fingerprint) {
+        if (recentOrderFingerprints.contains(fingerprint)) {
+            return true;
+        }
+        LocalDateTime windowStart = LocalDateTime.now().minusMinutes(duplicateWindowMinutes);
+        return orderRepository.existsByFingerprintAndCreatedAtAfter(fingerprint, windowStart);
+    }
+
+    /**
+     * Registra l'impronta solo a commit avvenuto, così un rollback non genera falsi duplicati
+     */
+    private void registerFingerprintAfterCommit(String fingerprint) {
+        afterCommit(() -> recentOrderFingerprints.register(fingerprint));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Esegue la transizione in una propria transazione, tenendo il lock in memoria dell'ordine
+     */
+    private Optional<OrderResponse> inTransitionLock(String orderCode, Supplier<Optional<OrderResponse>> transition) {
+        return orderLockRegistry.withLock(orderCode, () -> transactionTemplate.execute(status -> transition.get()));
+    }
+
+    /**
+     * Nessuna riga aggiornata: l'ordine non esiste (risultato vuoto) oppure non è nello stato atteso.
+     * La lettura dello stato avviene solo in questo caso, mai nel percorso normale;
+     * un ordine archiviato risulta completato.
+     */
+    private Optional<OrderResponse> transitionRejected(String orderCode, OrderErrorCode errorCode, String expected) {
+        Optional<OrderStatus> status = orderRepository.findStatusByOrderCode(orderCode)
+                .or(() -> archivedOrderCodes(List.of(orderCode)).stream().findFirst().map(code -> OrderStatus.COMPLETED));
+        if (status.isEmpty()) {
             return Optional.empty();
         }
+        throw new OrderException(errorCode, "L'ordine " + orderCode + " non è " + expected + " ma è " + status.get());
+    }
 
-        Order order = orderOpt.get();
-        if (order.getStatus() != OrderStatus.READY) {
-            throw new OrderException(OrderErrorCode.ORDER_INVALID_STATUS, 
-                "L'ordine " + orderCode + " non è pronto ma è " + order.getStatus());
+    /**
+     * Un solo UPDATE per tutti i codici; lo stato attuale viene letto (con una sola query)
+     * solo per i codici non aggiornati, per spiegarne il motivo
+     */
+    private BatchTransitionResponse transitionAll(List<String> orderCodes, OrderStatus from, OrderStatus to,
+                                                  LocalDateTime takenAt, LocalDateTime completedAt,
+                                                  OrderEvent.Type eventType, String expected) {
+        Set<String> codes = new LinkedHashSet<>(orderCodes);
+        Map<String, OrderResponse> updated = new HashMap<>();
+        for (OrderResponse order : OrderResponseMapper.fromRows(
+                orderRepository.transitionAll(codes, from, to, takenAt, completedAt))) {
+            updated.put(order.getOrderCode(), publish(eventType, order));
         }
 
-        order.complete();
-        Order savedOrder = orderRepository.save(order);
-        return Optional.of(convertToResponse(savedOrder));
+        Map<String, OrderStatus> currentStatuses = new HashMap<>();
+        if (updated.size() < codes.size()) {
+            List<String> notUpdated = codes.stream().filter(code -> !updated.containsKey(code)).toList();
+            for (OrderCodeStatus current : orderRepository.findStatusesByOrderCodeIn(notUpdated)) {
+                currentStatuses.put(current.getOrderCode(), current.getStatus());
+            }
+            if (currentStatuses.size() < notUpdated.size()) {
+                List<String> missing = notUpdated.stream().filter(code -> !currentStatuses.containsKey(code)).toList();
+                for (String archived : archivedOrderCodes(missing)) {
+                    currentStatuses.put(archived, OrderStatus.COMPLETED);
+                }
+            }
+        }
+
+        List<BatchTransitionResult> results = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            OrderResponse order = updated.get(code);
+            OrderStatus status = currentStatuses.get(code);
+            if (order != null) {
+                results.add(BatchTransitionResult.updated(order));
+            } else if (status == null) {
+                results.add(BatchTransitionResult.rejected(code, OrderErrorCode.ORDER_NOT_FOUND.name(),
+                        String.format(OrderErrorCode.ORDER_NOT_FOUND.getDescrizione(), code)));
+            } else {
+                results.add(BatchTransitionResult.rejected(code, OrderErrorCode.ORDER_INVALID_STATUS.name(),
+                        "L'ordine " + code + " non è " + expected + " ma è " + status));
+            }
+        }
+        return new BatchTransitionResponse(updated.size(), codes.size() - updated.size(), results);
+    }
+
+    /**
+     * Codici di ordini non più nella tabella attiva perché archiviati (quindi completati)
+     */
+    private List<String> archivedOrderCodes(List<String> orderCodes) {
+        return orderRepository.findArchivedOrderCodes(orderCodes);
     }
 
     /**
-     * Verifica se è un ordine duplicato (stesso cliente, stessi prodotti, entro 5 minuti)
+     * Risposta dalle righe restituite da una transizione (un solo ordine)
      */
-    private boolean isDuplicateOrder(CreateOrderRequest request) {
-        LocalDateTime fiveMinutesAgo = LocalDateTime.now().minusMinutes(5);
-        List<Order> recentOrders = orderRepository.findByCreatedAtAfterOrderByCreatedAtAsc(fiveMinutesAgo);
+    private OrderResponse toResponse(List<OrderItemRow> rows) {
+        return OrderResponseMapper.fromRows(rows).get(0);
+    }
 
-        return recentOrders.stream()
-                .anyMatch(order -> order.getCustomerName().equals(request.getCustomerName()) &&
-                        order.getCustomerPhone().equals(request.getCustomerPhone()) &&
-                        hasSameItems(order, request));
+    /**
+     * Pubblica il cambio di stato: l'evento entra nell'outbox nella stessa transazione,
+     * gli ascoltatori transazionali lo ricevono solo dopo il commit.
+     * Le letture dell'ordine restano sul primario per la finestra read-your-writes; la voce in cache
+     * viene tolta subito e sostituita con il nuovo stato a commit avvenuto, quando anche le pagine
+     * condivise di coda e ordini attivi smettono di essere riusate.
+     */
+    private OrderResponse publish(OrderEvent.Type type, OrderResponse order) {
+        OrderEvent event = new OrderEvent(type, order);
+        orderOutbox.append(event);
+        recentOrderWrites.register(order.getOrderCode());
+        orderResponseCache.invalidate(order.getOrderCode());
+        afterCommit(() -> {
+            orderResponseCache.update(order);
+            queueReadCoalescer.invalidate();
+        });
+        eventPublisher.publishEvent(event);
+        return order;
     }
 
     /**
-     * Verifica se due ordini hanno gli stessi elementi (pizze, quantità e note)
+     * Seconda fase delle letture a liste: proiezione diretta sui DTO, senza entità gestite
+     * (niente snapshot per il dirty checking, niente flush)
      */
-    private boolean hasSameItems(Order order, CreateOrderRequest request) {
-        // Primo controllo: stesso numero di elementi
-        if (order.getItems().size() != request.getItems().size()) {
-            return false;
+    private List<OrderResponse> loadOrders(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
         }
+        return OrderResponseMapper.fromRows(orderRepository.findOrderItemRowsByIdIn(orderIds));
+    }
 
-        // Controllo specifico: ogni elemento della richiesta deve avere un match esatto nell'ordine
-        return request.getItems().stream()
-                .allMatch(requestItem -> order.getItems().stream()
-                        .anyMatch(orderItem ->
-                                orderItem.getPizza().getId().equals(requestItem.getPizzaId()) &&
-                                        orderItem.getQuantity().equals(requestItem.getQuantity()) &&
-                                        areNotesEqual(orderItem.getNotes(), requestItem.getNotes())));
+    /**
+     * Carica la pagina dagli id della fase 1 (al massimo limit + 1) e calcola il cursore successivo
+     */
+    private OrderPage loadPage(List<Long> orderIds, int limit) {
+        boolean hasMore = orderIds.size() > limit;
+        List<OrderResponse> orders = loadOrders(hasMore ? orderIds.subList(0, limit) : orderIds);
+        if (!hasMore) {
+            return new OrderPage(orders, null);
+        }
+        OrderResponse last = orders.get(orders.size() - 1);
+        return new OrderPage(orders, new OrderCursor(last.getCreatedAt(), last.getId()).encode());
     }
 
-    private boolean areNotesEqual(String notes1, String notes2) {
-        if (notes1 == null && notes2 == null) {
-            return true;
+    private OrderCursor decodeCursor(String cursor) {
+        return cursor == null || cursor.isBlank() ? null : OrderCursor.decode(cursor);
+    }
+
+    private void checkPageSize(int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new OrderException(OrderErrorCode.INVALID_PAGE_SIZE, String.valueOf(limit), String.valueOf(maxPageSize));
         }
-        if (notes1 == null || notes2 == null) {
-            return false;
-        }
-        return notes1.trim().equalsIgnoreCase(notes2.trim());
-    }
-
-    // Metodi di utilità
-    private OrderResponse convertToResponse(Order order) {
-        OrderResponse response = new OrderResponse();
-        response.setId(order.getId());
-        response.setOrderCode(order.getOrderCode());
-        response.setCustomerName(order.getCustomerName());
-        response.setCustomerPhone(order.getCustomerPhone());
-        response.setStatus(order.getStatus());
-        response.setCreatedAt(order.getCreatedAt());
-        response.setTakenAt(order.getTakenAt());
-        response.setCompletedAt(order.getCompletedAt());
-
-        List<OrderItemResponse> itemResponses = order.getItems().stream()
-                .map(this::convertToItemResponse)
-                .collect(Collectors.toList());
-        response.setItems(itemResponses);
-
-        return response;
-    }
-
-    private OrderItemResponse convertToItemResponse(OrderItem item) {
-        OrderItemResponse response = new OrderItemResponse();
-        response.setId(item.getId());
-        response.setPizzaId(item.getPizza().getId());
-        response.setPizzaName(item.getPizza().getName());
-        response.setPizzaDescription(item.getPizza().getDescription());
-        response.setPizzaPrice(item.getPizza().getPrice());
-        response.setQuantity(item.getQuantity());
-        response.setNotes(item.getNotes());
-        return response;
     }
 }
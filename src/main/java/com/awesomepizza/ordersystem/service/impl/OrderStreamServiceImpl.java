@@ -0,0 +1,240 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.config.ReadWriteRoutingDataSource;
+import com.awesomepizza.ordersystem.event.OrderEvent;
+import com.awesomepizza.ordersystem.service.OrderService;
+import com.awesomepizza.ordersystem.service.OrderStreamService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementazione del flusso SSE degli ordini.
+ *
+ * Ogni evento viene serializzato una sola volta e accodato a tutti gli schermi,
+ * così il costo di un cambio di stato è un fan-out e non una query per schermo a ogni polling.
+ * Ogni schermo ha una propria coda limitata (order.stream.queue-size), svuotata in ordine da un solo
+ * thread alla volta: uno schermo lento blocca solo il proprio invio, e quando la sua coda si riempie
+ * viene scollegato invece di trattenere gli eventi degli altri.
+ */
+@Slf4j
+@Service
+public class OrderStreamServiceImpl implements OrderStreamService {
+
+    static final String SNAPSHOT_EVENT = "SNAPSHOT";
+
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int queueSize;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "order-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OrderStreamServiceImpl(OrderService orderService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${order.stream.timeout-ms:1800000}") long timeoutMillis,
+                                  @Value("${order.stream.queue-size:256}") int queueSize) {
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.queueSize = queueSize;
+    }
+
+    @Override
+    public SseEmitter subscribe() {
+        Subscriber subscriber = new Subscriber(newEmitter());
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Prima la registrazione, poi la fotografia. Gli eventi arrivati nel frattempo restano in coda
+        // e partono dopo la fotografia: qualcuno può esservi già incluso, ma nessuno va perso (il client
+        // li applica per codice ordine). La fotografia è letta dal primario: una replica in ritardo
+        // potrebbe non contenere eventi già inviati
+        subscribers.add(subscriber);
+        try {
+            String snapshotId = String.valueOf(eventIds.get());
+            String snapshot = serialize(ReadWriteRoutingDataSource.usePrimary(orderService::getActiveOrders));
+            subscriber.start(SseEmitter.event()
+                    .id(snapshotId)
+                    .name(SNAPSHOT_EVENT)
+                    .data(snapshot)
+                    .build());
+        } catch (RuntimeException e) {
+            subscribers.remove(subscriber);
+            throw e;
+        }
+        return emitter;
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Riceve gli eventi solo a commit avvenuto e li accoda agli schermi,
+     * senza trattenere il thread della richiesta che ha cambiato lo stato
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> payload = SseEmitter.event()
+                .id(String.valueOf(eventIds.incrementAndGet()))
+                .name(event.getType().name())
+                .data(serialize(event))
+                .build();
+        dispatch(payload);
+    }
+
+    /**
+     * Commento periodico per tenere aperte le connessioni attraverso proxy e load balancer
+     * e per accorgersi degli schermi scollegati
+     */
+    @Scheduled(fixedDelayString = "${order.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            dispatch(SseEmitter.event().comment("ping").build());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void dispatch(Set<ResponseBodyEmitter.DataWithMediaType> payload) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(payload);
+        }
+    }
+
+    private String serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossibile serializzare l'evento dell'ordine", e);
+        }
+    }
+
+    /**
+     * Coda di invio di uno schermo. Gli eventi si accumulano finché la fotografia non è pronta,
+     * poi un solo thread alla volta li invia nell'ordine di arrivo
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Deque<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ArrayDeque<>();
+        private boolean started;
+        private boolean sending;
+        private boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void start(Set<ResponseBodyEmitter.DataWithMediaType> snapshot) {
+            synchronized (this) {
+                queue.addFirst(snapshot);
+                started = true;
+            }
+            drainLater();
+        }
+
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> payload) {
+            boolean overflow;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                overflow = queue.size() >= queueSize;
+                if (!overflow) {
+                    queue.addLast(payload);
+                }
+            }
+            if (overflow) {
+                log.warn("Schermo SSE scollegato: {} eventi in attesa di invio", queueSize);
+                close(new IOException("Schermo SSE troppo lento"));
+            } else {
+                drainLater();
+            }
+        }
+
+        private void drainLater() {
+            synchronized (this) {
+                if (!started || sending || closed || queue.isEmpty()) {
+                    return;
+                }
+                sending = true;
+            }
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                log.debug("Evento SSE scartato durante lo spegnimento");
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Set<ResponseBodyEmitter.DataWithMediaType> payload;
+                synchronized (this) {
+                    payload = closed ? null : queue.pollFirst();
+                    if (payload == null) {
+                        sending = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(payload);
+                } catch (IOException | IllegalStateException e) {
+                    // Schermo scollegato
+                    close(e);
+                }
+            }
+        }
+
+        private void close(Throwable cause) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                queue.clear();
+            }
+            subscribers.remove(this);
+            emitter.completeWithError(cause);
+        }
+    }
+}
@@ -1,66 +1,166 @@
 package com.awesomepizza.ordersystem.service.impl;
 
+import com.awesomepizza.ordersystem.config.ReadWriteRoutingDataSource;
 import com.awesomepizza.ordersystem.model.Pizza;
 import com.awesomepizza.ordersystem.repository.PizzaRepository;
 import com.awesomepizza.ordersystem.service.PizzaService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Implementazione del servizio per la gestione delle pizze
+ *
+ * Le letture sono servite da una fotografia immutabile del menu tenuta in memoria
+ * (nessun lock, nessun accesso al database). Le scritture passano dal database e,
+ * a commit avvenuto, pubblicano atomicamente una nuova versione della fotografia.
  */
+@Slf4j
 @Service
 public class PizzaServiceImpl implements PizzaService {
-    
+
     @Autowired
     private PizzaRepository pizzaRepository;
-    
+
+    private final AtomicReference<MenuSnapshot> menu = new AtomicReference<>();
+
+    // Serializza solo gli scrittori, i lettori non lo toccano mai
+    private final ReentrantLock writeLock = new ReentrantLock();
+
     @Override
     public List<Pizza> getAvailablePizzas() {
-        return pizzaRepository.findByAvailableTrue();
+        return currentMenu().getAvailablePizzas();
     }
-    
+
     @Override
     public List<Pizza> getAllPizzas() {
-        return pizzaRepository.findAll();
+        return currentMenu().getAllPizzas();
     }
-    
+
     @Override
     public Optional<Pizza> getPizzaById(Long id) {
-        return pizzaRepository.findById(id);
+        return currentMenu().findById(id);
     }
-    
+
     @Override
     public Optional<Pizza> getPizzaByName(String name) {
-        return pizzaRepository.findByName(name);
+        return currentMenu().findByName(name);
     }
-    
+
     @Override
     public Pizza savePizza(Pizza pizza) {
-        return pizzaRepository.save(pizza);
+        writeLock.lock();
+        try {
+            return publish(pizzaRepository.save(pizza));
+        } finally {
+            writeLock.unlock();
+        }
     }
-    
+
     @Override
     public Optional<Pizza> updatePizzaAvailability(Long id, boolean available) {
-        Optional<Pizza> pizzaOpt = pizzaRepository.findById(id);
-        if (pizzaOpt.isPresent()) {
-            Pizza pizza = pizzaOpt.get();
-            pizza.setAvailable(available);
-            return Optional.of(pizzaRepository.save(pizza));
+        writeLock.lock();
+        try {
+            // Lettura dal primario e non dalla cache di secondo livello: la pizza viene subito riscritta
+            Optional<Pizza> pizzaOpt = ReadWriteRoutingDataSource.usePrimary(() -> pizzaRepository.findCurrentById(id));
+            if (pizzaOpt.isPresent()) {
+                Pizza pizza = pizzaOpt.get();
+                pizza.setAvailable(available);
+                return Optional.of(publish(pizzaRepository.save(pizza)));
+            }
+            return Optional.empty();
+        } finally {
+            writeLock.unlock();
         }
-        return Optional.empty();
     }
-    
+
     @Override
     public boolean existsByName(String name) {
-        return pizzaRepository.existsByName(name);
+        return currentMenu().findByName(name).isPresent();
     }
-    
+
     @Override
     public long countAvailablePizzas() {
-        return pizzaRepository.countAvailablePizzas();
+        return currentMenu().getAvailablePizzas().size();
+    }
+
+    @Override
+    public long getMenuVersion() {
+        return currentMenu().getVersion();
+    }
+
+    /**
+     * Ricarica periodicamente il menu, per recepire le modifiche fatte da altre istanze
+     * dell'applicazione. La query è nella cache delle query: va sul database solo dopo una
+     * scrittura di questa istanza o alla scadenza della regione "menu".
+     */
+    @Scheduled(initialDelayString = "${menu.snapshot.refresh-interval-ms:60000}",
+            fixedDelayString = "${menu.snapshot.refresh-interval-ms:60000}")
+    public void reloadMenu() {
+        writeLock.lock();
+        try {
+            MenuSnapshot current = menu.get();
+            long nextVersion = current != null ? current.getVersion() + 1 : 1L;
+            menu.set(new MenuSnapshot(nextVersion, pizzaRepository.findAll()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private MenuSnapshot currentMenu() {
+        MenuSnapshot snapshot = menu.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        writeLock.lock();
+        try {
+            if (menu.get() == null) {
+                menu.set(new MenuSnapshot(1L, pizzaRepository.findAll()));
+            }
+            return menu.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Pubblica la pizza salvata in una nuova fotografia solo a commit avvenuto: se una transazione
+     * esterna viene annullata il menu in memoria resta quello del database. La nuova fotografia parte
+     * da quella corrente al momento del commit, così più scritture nella stessa transazione si sommano.
+     */
+    private Pizza publish(Pizza savedPizza) {
+        Pizza pizza = MenuSnapshot.copyOf(savedPizza);
+        afterCommit(() -> {
+            writeLock.lock();
+            try {
+                MenuSnapshot snapshot = currentMenu().withPizza(pizza);
+                menu.set(snapshot);
+                log.debug("Menu aggiornato alla versione {}", snapshot.getVersion());
+            } finally {
+                writeLock.unlock();
+            }
+        });
+        return MenuSnapshot.copyOf(pizza);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
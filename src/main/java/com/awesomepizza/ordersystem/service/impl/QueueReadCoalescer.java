@@ -0,0 +1,98 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.dto.OrderPage;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Letture condivise delle pagine di coda e ordini attivi (single-flight).
+ *
+ * Richieste concorrenti per la stessa pagina attendono un solo caricamento dal database, e il risultato
+ * viene riusato per una durata molto breve. Ogni cambio di stato fa avanzare la generazione, che fa parte
+ * della chiave: dopo un commit nessuna richiesta riceve più una pagina caricata prima. Così il carico
+ * degli schermi della cucina sul database non dipende dal loro numero.
+ */
+@Component
+public class QueueReadCoalescer {
+
+    public enum Query {
+        PENDING,
+        ACTIVE
+    }
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final AsyncCache<PageKey, OrderPage> pages;
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter loaded;
+    private final Counter shared;
+
+    public QueueReadCoalescer(PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${order.queue.coalesce-ttl-ms:500}") long ttlMillis) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Le voci in caricamento non scadono; quelle completate solo dopo la durata indicata
+        this.pages = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .maximumSize(1000)
+                .buildAsync();
+        this.loaded = meterRegistry.counter("order.queue.reads", "result", "loaded");
+        this.shared = meterRegistry.counter("order.queue.reads", "result", "shared");
+    }
+
+    /**
+     * Pagina condivisa con le richieste concorrenti, oppure caricata (in una transazione in sola lettura)
+     */
+    public OrderPage get(Query query, OrderCursor cursor, int limit, Supplier<OrderPage> loader) {
+        PageKey key = new PageKey(query, cursor, limit, generation.get());
+        CompletableFuture<OrderPage> candidate = new CompletableFuture<>();
+        CompletableFuture<OrderPage> existing = pages.asMap().putIfAbsent(key, candidate);
+        if (existing != null) {
+            shared.increment();
+            return await(existing);
+        }
+
+        loaded.increment();
+        try {
+            candidate.complete(readOnlyTransaction.execute(status -> loader.get()));
+        } catch (RuntimeException e) {
+            // Le voci fallite vengono tolte dalla cache: la richiesta successiva riprova
+            candidate.completeExceptionally(e);
+            throw e;
+        }
+        return candidate.join();
+    }
+
+    /**
+     * Nuova generazione dopo un cambio di stato: le pagine già caricate non vengono più restituite
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    private OrderPage await(CompletableFuture<OrderPage> page) {
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record PageKey(Query query, OrderCursor cursor, int limit, long generation) {
+    }
+}
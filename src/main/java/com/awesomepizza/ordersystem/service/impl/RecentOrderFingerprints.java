@@ -0,0 +1,44 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Insieme in memoria delle impronte degli ordini creati di recente.
+ *
+ * Le voci scadono dopo la finestra di rilevamento dei duplicati e l'insieme ha una
+ * dimensione massima, quindi la memoria occupata resta limitata anche nei picchi.
+ */
+@Component
+public class RecentOrderFingerprints {
+
+    private final Cache<String, Boolean> fingerprints;
+
+    public RecentOrderFingerprints(
+            @Value("${order.duplicate-check.window-minutes:5}") long windowMinutes,
+            @Value("${order.duplicate-check.max-entries:100000}") long maxEntries) {
+        this.fingerprints = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(windowMinutes))
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    public boolean contains(String fingerprint) {
+        return fingerprints.getIfPresent(fingerprint) != null;
+    }
+
+    public void register(String fingerprint) {
+        fingerprints.put(fingerprint, Boolean.TRUE);
+    }
+
+    /**
+     * Rimuove l'impronta di un ordine che alla fine non è stato salvato, così il cliente può ripeterlo
+     */
+    public void unregister(String fingerprint) {
+        fingerprints.invalidate(fingerprint);
+    }
+}
@@ -0,0 +1,146 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.config.ReadWriteRoutingDataSource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Ordini scritti di recente (read-your-writes): per la durata della finestra le loro letture vanno
+ * sul primario, così il cliente che ha appena creato o visto cambiare il proprio ordine non legge
+ * una replica in ritardo.
+ *
+ * Due segnali, perché dietro un bilanciatore la lettura successiva può arrivare a un'altra istanza:
+ * i codici scritti da questa istanza, in memoria, e il cookie {@value #COOKIE} con l'ora della scrittura
+ * e i codici degli ordini scritti, aggiunto alla risposta della richiesta che ha scritto e rimandato dal client
+ * a qualsiasi istanza. Il cookie vale solo per i suoi ordini: le altre letture dello stesso client restano
+ * sulle repliche. Un client senza cookie letto da un'altra istanza può ancora vedere la replica in ritardo.
+ */
+@Component
+public class RecentOrderWrites {
+
+    static final String COOKIE = "order_written_at";
+
+    // Limite dei codici nel cookie (circa 18 byte ciascuno), ben sotto i 4 KB accettati dai browser
+    static final int MAX_COOKIE_ORDERS = 50;
+
+    private static final String WRITTEN_ATTRIBUTE = RecentOrderWrites.class.getName() + ".written";
+    private static final String SEPARATOR = ".";
+
+    private final long windowMillis;
+    private final Cache<String, Boolean> orderCodes;
+
+    public RecentOrderWrites(
+            @Value("${order.datasource.read-your-writes-ms:2000}") long windowMillis,
+            @Value("${order.datasource.read-your-writes-max-entries:100000}") long maxEntries) {
+        this.windowMillis = windowMillis;
+        this.orderCodes = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(windowMillis))
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    public void register(String orderCode) {
+        orderCodes.put(orderCode, Boolean.TRUE);
+        markClient(orderCode);
+    }
+
+    /**
+     * Annota l'ordine scritto dalla richiesta HTTP in corso, per il cookie della risposta.
+     * Fuori da una richiesta (thread di scrittura, job) non fa nulla.
+     */
+    @SuppressWarnings("unchecked")
+    public void markClient(String orderCode) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        Set<String> written = (Set<String>) request.getAttribute(WRITTEN_ATTRIBUTE);
+        if (written == null) {
+            written = new LinkedHashSet<>();
+            request.setAttribute(WRITTEN_ATTRIBUTE, written);
+        }
+        written.add(orderCode);
+    }
+
+    /**
+     * Cookie per la risposta: gli ordini scritti dalla richiesta più quelli del cookie ricevuto ancora
+     * nella finestra, con l'ora attuale (i più vecchi restano sul primario un po' più a lungo).
+     * Vuoto se la richiesta non ha scritto ordini; lo restituisce una volta sola per richiesta.
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<ResponseCookie> cookie(HttpServletRequest request) {
+        Set<String> written = (Set<String>) request.getAttribute(WRITTEN_ATTRIBUTE);
+        if (written == null || written.isEmpty()) {
+            return Optional.empty();
+        }
+        request.removeAttribute(WRITTEN_ATTRIBUTE);
+        Set<String> codes = new LinkedHashSet<>(written);
+        codes.addAll(recentlyWrittenByClient(request));
+        StringBuilder value = new StringBuilder(String.valueOf(System.currentTimeMillis()));
+        codes.stream().limit(MAX_COOKIE_ORDERS).forEach(code -> value.append(SEPARATOR).append(code));
+        return Optional.of(ResponseCookie.from(COOKIE, value.toString())
+                .path("/")
+                .httpOnly(true)
+                .sameSite("Lax")
+                .maxAge(Duration.ofMillis(windowMillis).toSeconds() + 1)
+                .build());
+    }
+
+    /**
+     * Esegue la lettura dell'ordine sul primario se è stato scritto nella finestra, da questa istanza
+     * o dal client che la richiede, altrimenti normalmente
+     */
+    public <T> T read(String orderCode, Supplier<T> read) {
+        if (orderCodes.getIfPresent(orderCode) != null || clientWroteRecently(orderCode)) {
+            return ReadWriteRoutingDataSource.usePrimary(read);
+        }
+        return read.get();
+    }
+
+    private boolean clientWroteRecently(String orderCode) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return false;
+        }
+        return recentlyWrittenByClient(attributes.getRequest()).contains(orderCode);
+    }
+
+    /**
+     * Ordini del cookie ricevuto, se è ancora nella finestra. L'ora viene dall'orologio dell'istanza
+     * che ha scritto: tra istanze sincronizzate la differenza è trascurabile rispetto alla finestra
+     */
+    private List<String> recentlyWrittenByClient(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return List.of();
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                String[] parts = cookie.getValue().split(Pattern.quote(SEPARATOR));
+                try {
+                    long writtenAt = Long.parseLong(parts[0]);
+                    return System.currentTimeMillis() - writtenAt < windowMillis
+                            ? Arrays.asList(parts).subList(1, parts.length)
+                            : List.of();
+                } catch (NumberFormatException e) {
+                    return List.of();
+                }
+            }
+        }
+        return List.of();
+    }
+}
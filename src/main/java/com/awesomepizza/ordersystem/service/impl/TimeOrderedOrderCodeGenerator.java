@@ -0,0 +1,100 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.service.OrderCodeGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Codici ordine ordinati nel tempo, nel formato ORD- seguito da 13 caratteri base32 Crockford.
+ *
+ * Il valore a 63 bit è composto da millisecondi dall'epoca del sistema (41 bit, circa 69 anni),
+ * id del nodo (10 bit) e contatore nel millisecondo (12 bit): nodi diversi non possono generare
+ * lo stesso codice, e i codici crescono nel tempo, quindi gli inserimenti sull'indice univoco
+ * avvengono in coda invece che in punti casuali del B-tree.
+ *
+ * L'id del nodo (order.code.node-id) va assegnato esplicitamente e deve essere diverso per ogni istanza:
+ * senza l'applicazione non parte, perché due istanze con lo stesso id genererebbero codici uguali.
+ */
+@Slf4j
+@Component
+public class TimeOrderedOrderCodeGenerator implements OrderCodeGenerator {
+
+    static final String PREFIX = "ORD-";
+    static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int CODE_LENGTH = 13;
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final int nodeId;
+    private final LongSupplier clock;
+
+    // Ultimo valore emesso: (millisecondi << SEQUENCE_BITS) | contatore, aggiornato con CAS
+    private final AtomicLong lastTick = new AtomicLong();
+
+    @Autowired
+    public TimeOrderedOrderCodeGenerator(@Value("${order.code.node-id:-1}") int nodeId) {
+        this(requireNodeId(nodeId), System::currentTimeMillis);
+        log.info("Generatore codici ordine attivo con id nodo {}", this.nodeId);
+    }
+
+    TimeOrderedOrderCodeGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("order.code.node-id deve essere tra 0 e " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextCode() {
+        long tick = nextTick();
+        long millis = tick >>> SEQUENCE_BITS;
+        long value = (millis << (NODE_BITS + SEQUENCE_BITS))
+                | ((long) nodeId << SEQUENCE_BITS)
+                | (tick & SEQUENCE_MASK);
+        return PREFIX + encode(value);
+    }
+
+    /**
+     * Avanza al millisecondo corrente oppure incrementa il contatore. Se il contatore si esaurisce
+     * (o l'orologio torna indietro) il riporto prosegue sui millisecondi: i valori restano crescenti
+     * e il generatore non attende mai.
+     */
+    private long nextTick() {
+        long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        while (true) {
+            long last = lastTick.get();
+            long next = Math.max(now, last + 1);
+            if (lastTick.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    private static String encode(long value) {
+        char[] chars = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            chars[i] = CROCKFORD[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    private static int requireNodeId(int nodeId) {
+        if (nodeId < 0) {
+            throw new IllegalStateException("order.code.node-id non impostato: ogni istanza deve avere un id nodo "
+                    + "univoco tra 0 e " + MAX_NODE_ID);
+        }
+        return nodeId;
+    }
+}
@@ -0,0 +1,77 @@
+-- Schema di partenza, uguale a quello generato finora da Hibernate (ddl-auto=update).
+-- Lo script è idempotente: su un database esistente (baseline-on-migrate, versione 0)
+-- tabelle, sequenze e indici già presenti vengono lasciati invariati.
+
+CREATE SEQUENCE IF NOT EXISTS orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS pizzas (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255)   NOT NULL,
+    description VARCHAR(500),
+    price       NUMERIC(10, 2) NOT NULL,
+    available   BOOLEAN        NOT NULL,
+    CONSTRAINT uk_pizzas_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS orders (
+    id             BIGINT       NOT NULL PRIMARY KEY,
+    order_code     VARCHAR(255) NOT NULL,
+    customer_name  VARCHAR(255) NOT NULL,
+    customer_phone VARCHAR(255),
+    status         VARCHAR(255) NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL,
+    taken_at       TIMESTAMP(6),
+    completed_at   TIMESTAMP(6),
+    version        BIGINT       NOT NULL DEFAULT 0,
+    fingerprint    VARCHAR(64),
+    CONSTRAINT uk_orders_order_code UNIQUE (order_code),
+    CONSTRAINT orders_status_check CHECK (status IN ('PENDING', 'IN_PROGRESS', 'READY', 'COMPLETED'))
+);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id       BIGINT  NOT NULL PRIMARY KEY,
+    order_id BIGINT  NOT NULL REFERENCES orders (id),
+    pizza_id BIGINT  NOT NULL REFERENCES pizzas (id),
+    quantity INTEGER NOT NULL CHECK (quantity >= 1),
+    notes    VARCHAR(200)
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key     VARCHAR(100) NOT NULL PRIMARY KEY,
+    request_fingerprint VARCHAR(64)  NOT NULL,
+    response_body       TEXT         NOT NULL,
+    created_at          TIMESTAMP(6) NOT NULL,
+    expires_at          TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS order_outbox (
+    id           BIGINT       NOT NULL PRIMARY KEY,
+    order_code   VARCHAR(255) NOT NULL,
+    event_type   VARCHAR(20)  NOT NULL,
+    payload      TEXT         NOT NULL,
+    created_at   TIMESTAMP(6) NOT NULL,
+    processed_at TIMESTAMP(6),
+    attempts     INTEGER      NOT NULL DEFAULT 0,
+    last_error   VARCHAR(500),
+    CONSTRAINT order_outbox_event_type_check CHECK (event_type IN ('CREATED', 'TAKEN', 'READY', 'COMPLETED'))
+);
+
+CREATE INDEX IF NOT EXISTS idx_orders_fingerprint_created_at ON orders (fingerprint, created_at);
+CREATE INDEX IF NOT EXISTS idx_orders_status_created_at_id ON orders (status, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_orders_created_at_id ON orders (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
+CREATE INDEX IF NOT EXISTS idx_order_outbox_processed_at_id ON order_outbox (processed_at, id);
+
+-- Allinea le sequenze di orders e order_items agli id già presenti
+-- (righe inserite quando gli id erano generati con IDENTITY).
+-- Con allocationSize = 50 e ottimizzatore pooled, setval(seq, MAX(id)) fa partire
+-- il blocco successivo da MAX(id) + 1; una sequenza già avanti non viene riportata indietro.
+SELECT setval('orders_seq', m.max_id)
+FROM (SELECT MAX(id) AS max_id FROM orders) m
+WHERE m.max_id >= (SELECT last_value FROM orders_seq);
+
+SELECT setval('order_items_seq', m.max_id)
+FROM (SELECT MAX(id) AS max_id FROM order_items) m
+WHERE m.max_id >= (SELECT last_value FROM order_items_seq);
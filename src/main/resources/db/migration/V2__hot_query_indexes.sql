@@ -0,0 +1,12 @@
+-- Indici per le letture più frequenti; OrderQueryPlanTest verifica che i piani li usino.
+
+-- Ordini attivi (GET /orders/active): solo le righe non completate, già ordinate per il cursore
+-- keyset (created_at, id). L'indice resta piccolo anche con molto storico di ordini completati
+-- e sostituisce idx_orders_created_at_id, che obbligava a scorrere anche i completati.
+CREATE INDEX IF NOT EXISTS idx_orders_active_created_at_id ON orders (created_at, id)
+    WHERE status <> 'COMPLETED';
+DROP INDEX IF EXISTS idx_orders_created_at_id;
+
+-- Fase 2 delle letture a due fasi e caricamento di un ordine con i suoi elementi:
+-- senza indice sulla chiave esterna ogni join su order_items è una scansione sequenziale
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items (order_id);
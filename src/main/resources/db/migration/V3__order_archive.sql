@@ -0,0 +1,31 @@
+-- Archivio degli ordini completati (OrderArchiver): stesse colonne delle tabelle attive,
+-- più la data di archiviazione. Le tabelle attive restano piccole, l'archivio cresce con lo storico.
+
+CREATE TABLE IF NOT EXISTS orders_archive (
+    id             BIGINT       NOT NULL PRIMARY KEY,
+    order_code     VARCHAR(255) NOT NULL,
+    customer_name  VARCHAR(255) NOT NULL,
+    customer_phone VARCHAR(255),
+    status         VARCHAR(255) NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL,
+    taken_at       TIMESTAMP(6),
+    completed_at   TIMESTAMP(6),
+    version        BIGINT       NOT NULL,
+    fingerprint    VARCHAR(64),
+    archived_at    TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_orders_archive_order_code UNIQUE (order_code)
+);
+
+CREATE TABLE IF NOT EXISTS order_items_archive (
+    id       BIGINT  NOT NULL PRIMARY KEY,
+    order_id BIGINT  NOT NULL REFERENCES orders_archive (id),
+    pizza_id BIGINT  NOT NULL REFERENCES pizzas (id),
+    quantity INTEGER NOT NULL,
+    notes    VARCHAR(200)
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_items_archive_order_id ON order_items_archive (order_id);
+
+-- Selezione dei blocchi da archiviare: solo gli ordini completati, dal più vecchio
+CREATE INDEX IF NOT EXISTS idx_orders_completed_at_id ON orders (completed_at, id)
+    WHERE status = 'COMPLETED';
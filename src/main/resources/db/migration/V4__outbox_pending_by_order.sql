@@ -0,0 +1,3 @@
+-- Consegna dell'outbox in ordine per ordine (OrderOutboxRepository.lockNextBatch): per ogni evento
+-- da consegnare si cercano eventi precedenti dello stesso ordine ancora da consegnare.
+CREATE INDEX IF NOT EXISTS idx_order_outbox_pending_order_code ON order_outbox (order_code) WHERE processed_at IS NULL;
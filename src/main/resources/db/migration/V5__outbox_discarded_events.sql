@@ -0,0 +1,8 @@
+-- Eventi dell'outbox scartati dopo max-attempts tentativi: restano in tabella con l'ultimo errore,
+-- distinti da quelli consegnati, e non vengono né riconsegnati né eliminati dalla pulizia.
+ALTER TABLE order_outbox ADD COLUMN IF NOT EXISTS discarded_at TIMESTAMP(6);
+
+-- L'indice degli eventi da consegnare esclude anche quelli scartati
+DROP INDEX IF EXISTS idx_order_outbox_pending_order_code;
+CREATE INDEX IF NOT EXISTS idx_order_outbox_pending_order_code ON order_outbox (order_code)
+    WHERE processed_at IS NULL AND discarded_at IS NULL;
@@ -1,2 +0,0 @@
--- Crea lo schema pizzeria se non esiste
-CREATE SCHEMA IF NOT EXISTS pizzeria;
@@ -0,0 +1,67 @@
+package com.awesomepizza.ordersystem;
+
+import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
+import com.awesomepizza.ordersystem.dto.OrderItemRequest;
+import com.awesomepizza.ordersystem.model.Pizza;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Richieste d'ordine per i test, costruite a partire dalle pizze del menu.
+ * Il nome del cliente entra nell'impronta dell'ordine: va reso unico (es. con System.nanoTime())
+ * per non far scattare il controllo dei duplicati.
+ */
+public final class OrderFixtures {
+
+    public static final String CUSTOMER_PHONE = "1234567890";
+
+    private OrderFixtures() {
+    }
+
+    /**
+     * Ordine con una sola pizza, la prima del menu
+     */
+    public static CreateOrderRequest request(List<Pizza> pizzas, String customerName) {
+        return request(customerName, item(pizzas.get(0).getId(), 1, null));
+    }
+
+    /**
+     * Ordine con {@code items} elementi che scorrono il menu, con quantità da 1 a 3 e una nota ciascuno
+     */
+    public static CreateOrderRequest request(List<Pizza> pizzas, String customerName, int items) {
+        OrderItemRequest[] itemRequests = new OrderItemRequest[items];
+        for (int i = 0; i < items; i++) {
+            itemRequests[i] = item(pizzas.get(i % pizzas.size()).getId(), 1 + i % 3, "Nota " + i);
+        }
+        return request(customerName, itemRequests);
+    }
+
+    /**
+     * {@code count} ordini di clienti diversi, con una pizza ciascuno che scorre il menu
+     */
+    public static List<CreateOrderRequest> requests(List<Pizza> pizzas, String customerPrefix, int count) {
+        List<CreateOrderRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(request(customerPrefix + " " + System.nanoTime() + "-" + i,
+                    item(pizzas.get(i % pizzas.size()).getId(), 1, null)));
+        }
+        return requests;
+    }
+
+    public static CreateOrderRequest request(String customerName, OrderItemRequest... items) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setCustomerName(customerName);
+        request.setCustomerPhone(CUSTOMER_PHONE);
+        request.setItems(List.of(items));
+        return request;
+    }
+
+    public static OrderItemRequest item(Long pizzaId, int quantity, String notes) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setPizzaId(pizzaId);
+        item.setQuantity(quantity);
+        item.setNotes(notes);
+        return item;
+    }
+}
@@ -0,0 +1,158 @@
+package com.awesomepizza.ordersystem.benchmark;
+
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark di carico del ciclo di vita di un ordine via HTTP: creazione, presa in carico,
+ * pronto e completamento, con molti client concorrenti. Le sottoclassi avviano il server
+ * con thread di piattaforma o virtuali; i risultati vengono registrati nel log per il confronto.
+ *
+ * Parametri: -Dbenchmark.clients (predefinito 200), -Dbenchmark.lifecycles (per client, predefinito 10).
+ */
+@Slf4j
+abstract class OrderLifecycleLoadBenchmark {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 200);
+    private static final int LIFECYCLES_PER_CLIENT = Integer.getInteger("benchmark.lifecycles", 10);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    protected void runBenchmark(String mode) throws Exception {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        Assertions.assertFalse(pizzas.isEmpty(), "Menu vuoto");
+        long pizzaId = pizzas.get(0).getId();
+
+        // Riscaldamento: JIT, pool di connessioni e menu in memoria
+        for (int i = 0; i < 20; i++) {
+            lifecycle(mode + "-warmup-" + i, pizzaId, new long[4]);
+        }
+
+        long[][] latencies = new long[CLIENTS * LIFECYCLES_PER_CLIENT][];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long elapsed;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                int client = c;
+                futures.add(clients.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < LIFECYCLES_PER_CLIENT; i++) {
+                        long[] steps = new long[4];
+                        if (lifecycle(mode + "-" + client + "-" + i, pizzaId, steps)) {
+                            latencies[next.getAndIncrement()] = steps;
+                        } else {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsed = System.nanoTime() - begin;
+        } finally {
+            clients.shutdown();
+        }
+
+        report(mode, Arrays.copyOf(latencies, next.get()), elapsed, failures.get());
+        Assertions.assertEquals(0, failures.get(), "Cicli di vita falliti");
+    }
+
+    /**
+     * Un ciclo di vita completo; registra la latenza di ciascuna delle quattro chiamate
+     */
+    private boolean lifecycle(String customer, long pizzaId, long[] steps) throws Exception {
+        String body = "{\"customerName\":\"Benchmark " + customer + " " + System.nanoTime() + "\"," +
+                "\"customerPhone\":\"1234567890\",\"items\":[{\"pizzaId\":" + pizzaId + ",\"quantity\":1}]}";
+        HttpResponse<String> created = timed(steps, 0, HttpRequest.newBuilder(uri(""))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+        if (created.statusCode() != 201) {
+            return false;
+        }
+        String orderCode = new JSONObject(created.body()).getString("orderCode");
+        String[] transitions = {"take", "ready", "complete"};
+        for (int i = 0; i < transitions.length; i++) {
+            HttpResponse<String> response = timed(steps, i + 1, HttpRequest.newBuilder(uri("/" + orderCode + "/" + transitions[i]))
+                    .PUT(HttpRequest.BodyPublishers.noBody()));
+            if (response.statusCode() != 200) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private HttpResponse<String> timed(long[] steps, int step, HttpRequest.Builder request) throws Exception {
+        long begin = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request.timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        steps[step] = System.nanoTime() - begin;
+        return response;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api/v1/orders" + path);
+    }
+
+    private static void report(String mode, long[][] latencies, long elapsedNanos, int failures) {
+        String[] names = {"POST /orders", "PUT /take", "PUT /ready", "PUT /complete"};
+        double seconds = elapsedNanos / 1e9;
+        log.info("=== Benchmark ciclo di vita ordini [{}] - Java {}, {} client ===",
+                mode, Runtime.version().feature(), CLIENTS);
+        log.info("Cicli completati: {} (falliti: {}) in {} s -> {} cicli/s, {} richieste/s",
+                latencies.length, failures, String.format("%.2f", seconds),
+                Math.round(latencies.length / seconds), Math.round(latencies.length * 4 / seconds));
+        for (int step = 0; step < names.length; step++) {
+            long[] values = new long[latencies.length];
+            for (int i = 0; i < latencies.length; i++) {
+                values[i] = latencies[i][step];
+            }
+            Arrays.sort(values);
+            log.info(String.format("%-14s p50 %6.1f ms  p95 %6.1f ms  p99 %6.1f ms", names[step],
+                    percentile(values, 50), percentile(values, 95), percentile(values, 99)));
+        }
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
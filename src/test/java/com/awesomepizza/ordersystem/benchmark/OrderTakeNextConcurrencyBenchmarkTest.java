@@ -0,0 +1,97 @@
+package com.awesomepizza.ordersystem.benchmark;
+
+import com.awesomepizza.ordersystem.OrderFixtures;
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.model.OrderStatus;
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.service.OrderService;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput della presa in carico del prossimo ordine con 1, 2, 4 e 8 pizzaioli concorrenti.
+ *
+ * "Il prossimo ordine" è il più vecchio in attesa dell'intero database, quindi il test prende in carico
+ * anche gli ordini degli altri test: gira solo con il profilo benchmark, non insieme alla suite normale.
+ * La correttezza (ogni ordine a un solo pizzaiolo) è verificata da OrderTakeNextConcurrencyTest.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+public class OrderTakeNextConcurrencyBenchmarkTest {
+
+    private static final int ORDERS_PER_TAKER = 25;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Test
+    public void concurrentTakersNeverClaimTwiceTest() throws Exception {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        for (int takers : new int[]{1, 2, 4, 8}) {
+            orderService.createOrders(OrderFixtures.requests(pizzas, "TakeNext Customer", takers * ORDERS_PER_TAKER));
+
+            Set<String> claimed = ConcurrentHashMap.newKeySet();
+            AtomicInteger claims = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(takers);
+            long elapsed;
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < takers; t++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < ORDERS_PER_TAKER; i++) {
+                            Optional<OrderResponse> order = orderService.takeNextOrder();
+                            if (order.isEmpty()) {
+                                break;
+                            }
+                            Assertions.assertEquals(OrderStatus.IN_PROGRESS, order.get().getStatus());
+                            claims.incrementAndGet();
+                            claimed.add(order.get().getOrderCode());
+                        }
+                        return null;
+                    }));
+                }
+                long begin = System.nanoTime();
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                elapsed = System.nanoTime() - begin;
+            } finally {
+                executor.shutdown();
+            }
+
+            log.info("{} pizzaioli: {} ordini in {} ms ({} ordini/s)", takers, claims.get(), elapsed / 1_000_000,
+                    Math.round(claims.get() / (elapsed / 1e9)));
+
+            // Nessun ordine assegnato due volte, e ogni pizzaiolo ha trovato lavoro
+            Assertions.assertEquals(claims.get(), claimed.size());
+            Assertions.assertEquals(takers * ORDERS_PER_TAKER, claims.get());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.awesomepizza.ordersystem.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Ciclo di vita degli ordini con il pool di thread di piattaforma di Tomcat (modalità predefinita)
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=false")
+public class PlatformThreadsLoadBenchmarkTest extends OrderLifecycleLoadBenchmark {
+
+    @Test
+    public void platformThreadsLifecycleBenchmark() throws Exception {
+        runBenchmark("platform");
+    }
+}
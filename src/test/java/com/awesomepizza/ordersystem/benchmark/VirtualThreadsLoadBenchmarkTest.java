@@ -0,0 +1,22 @@
+package com.awesomepizza.ordersystem.benchmark;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Ciclo di vita degli ordini con il profilo "virtual" (richiede Java 21: mvn -Pjava21,benchmark test)
+ */
+@Tag("benchmark")
+@ActiveProfiles("virtual")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class VirtualThreadsLoadBenchmarkTest extends OrderLifecycleLoadBenchmark {
+
+    @Test
+    public void virtualThreadsLifecycleBenchmark() throws Exception {
+        Assumptions.assumeTrue(Runtime.version().feature() >= 21, "I thread virtuali richiedono Java 21");
+        runBenchmark("virtual");
+    }
+}
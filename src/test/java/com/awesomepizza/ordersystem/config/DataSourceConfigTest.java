@@ -0,0 +1,15 @@
+package com.awesomepizza.ordersystem.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DataSourceConfigTest {
+
+    @Test
+    public void replicaPoolNameTest() {
+        Assertions.assertEquals("AwesomePizzaPool-replica-1", DataSourceConfig.replicaPoolName("AwesomePizzaPool", 1));
+        // Senza nome del primario: prefisso fisso, mai "null-replica-N"
+        Assertions.assertEquals(DataSourceConfig.DEFAULT_POOL_NAME + "-replica-0", DataSourceConfig.replicaPoolName(null, 0));
+        Assertions.assertEquals(DataSourceConfig.DEFAULT_POOL_NAME + "-replica-0", DataSourceConfig.replicaPoolName(" ", 0));
+    }
+}
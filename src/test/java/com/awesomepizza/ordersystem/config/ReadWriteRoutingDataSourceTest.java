@@ -0,0 +1,78 @@
+package com.awesomepizza.ordersystem.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private final Connection primaryConnection = Mockito.mock(Connection.class);
+    private final Connection firstReplicaConnection = Mockito.mock(Connection.class);
+    private final Connection secondReplicaConnection = Mockito.mock(Connection.class);
+
+    @AfterEach
+    public void clearTransactionState() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void readOnlyTransactionsUseReplicasTest() throws SQLException {
+        ReadWriteRoutingDataSource routing = routing(List.of(dataSource(firstReplicaConnection),
+                dataSource(secondReplicaConnection)));
+
+        Assertions.assertSame(primaryConnection, routing.getConnection());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        // Repliche a rotazione
+        Assertions.assertSame(firstReplicaConnection, routing.getConnection());
+        Assertions.assertSame(secondReplicaConnection, routing.getConnection());
+        Assertions.assertSame(firstReplicaConnection, routing.getConnection());
+    }
+
+    @Test
+    public void usePrimaryOverridesReadOnlyTest() throws SQLException {
+        ReadWriteRoutingDataSource routing = routing(List.of(dataSource(firstReplicaConnection)));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Connection forced = ReadWriteRoutingDataSource.usePrimary(() -> {
+            try {
+                return routing.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Assertions.assertSame(primaryConnection, forced);
+        // Fuori da usePrimary si torna alle repliche
+        Assertions.assertSame(firstReplicaConnection, routing.getConnection());
+    }
+
+    @Test
+    public void noReplicasUsesPrimaryTest() throws SQLException {
+        ReadWriteRoutingDataSource routing = routing(List.of());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Assertions.assertSame(primaryConnection, routing.getConnection());
+    }
+
+    private ReadWriteRoutingDataSource routing(List<DataSource> replicas) throws SQLException {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(dataSource(primaryConnection), replicas,
+                new SimpleMeterRegistry());
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static DataSource dataSource(Connection connection) throws SQLException {
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
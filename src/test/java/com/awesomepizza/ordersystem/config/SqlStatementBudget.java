@@ -0,0 +1,24 @@
+package com.awesomepizza.ordersystem.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/**
+ * Budget di statement SQL per una richiesta MockMvc, letto dal conteggio di {@link SqlStatementReporter}.
+ * Un N+1 introdotto in un endpoint fa fallire il test invece di passare inosservato.
+ */
+public final class SqlStatementBudget {
+
+    private SqlStatementBudget() {
+    }
+
+    public static ResultMatcher atMost(long statements) {
+        return result -> {
+            Object stats = result.getRequest().getAttribute(SqlStatementReporter.STATS_ATTRIBUTE);
+            Assertions.assertNotNull(stats, "Statement SQL non conteggiati per " + result.getRequest().getRequestURI());
+            long executed = ((SqlStatementCounter.Stats) stats).statements();
+            Assertions.assertTrue(executed <= statements, result.getRequest().getMethod() + " "
+                    + result.getRequest().getRequestURI() + ": " + executed + " statement SQL, budget " + statements);
+        };
+    }
+}
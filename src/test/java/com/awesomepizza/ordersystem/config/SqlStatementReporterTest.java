@@ -0,0 +1,60 @@
+package com.awesomepizza.ordersystem.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Statement SQL per richiesta: header Server-Timing e metriche per endpoint
+ */
+@SpringBootTest
+public class SqlStatementReporterTest {
+
+    @Autowired
+    WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void serverTimingAndMetricsTest() {
+        String uri = "/api/v1/orders/queue";
+
+        int status;
+        String serverTiming = null;
+        try {
+            MockMvc mvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+            MockHttpServletResponse response = mvc
+                    .perform(MockMvcRequestBuilders
+                            .get(uri)
+                            .accept(MediaType.APPLICATION_JSON_VALUE))
+                    .andReturn()
+                    .getResponse();
+            serverTiming = response.getHeader(SqlStatementReporter.SERVER_TIMING_HEADER);
+            status = response.getStatus();
+        } catch (Exception e) {
+            status = 0;
+        }
+
+        Assertions.assertEquals(200, status);
+        Assertions.assertNotNull(serverTiming);
+        Assertions.assertTrue(serverTiming.matches("sql;desc=\"\\d+ statement\";dur=\\d+\\.\\d"), serverTiming);
+
+        // Metriche con il modello del percorso, non l'URI effettivo
+        DistributionSummary statements = meterRegistry.find("http.server.requests.sql.statements")
+                .tag("method", "GET").tag("uri", uri).summary();
+        Assertions.assertNotNull(statements);
+        Assertions.assertTrue(statements.count() >= 1);
+        Assertions.assertNotNull(meterRegistry.find("http.server.requests.sql.duration")
+                .tag("method", "GET").tag("uri", uri).timer());
+    }
+}
@@ -1,13 +1,20 @@
 package com.awesomepizza.ordersystem.controller;
 
+import com.awesomepizza.ordersystem.OrderFixtures;
+import com.awesomepizza.ordersystem.config.SqlStatementBudget;
 import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.model.Pizza;
 import com.awesomepizza.ordersystem.service.OrderService;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import com.awesomepizza.ordersystem.service.impl.OrderResponseCache;
+import com.awesomepizza.ordersystem.service.impl.QueueReadCoalescer;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
@@ -16,7 +23,10 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @SpringBootTest
 public class OrderControllerTest {
@@ -31,6 +41,16 @@ public class OrderControllerTest {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private PizzaService pizzaService;
+
+    // I budget di statement misurano la lettura dal database: prima della richiesta si svuotano le cache
+    @Autowired
+    private OrderResponseCache orderResponseCache;
+
+    @Autowired
+    private QueueReadCoalescer queueReadCoalescer;
+
     protected void setUp() {
         mvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
     }
@@ -63,7 +83,8 @@ public class OrderControllerTest {
             }
 
             Assertions.assertEquals(200, status);
-            Assertions.assertEquals(orders.size(), length);
+            // La prima pagina è limitata alla dimensione predefinita
+            Assertions.assertEquals(Math.min(orders.size(), 50), length);
         } else {
             int status;
             try {
@@ -83,6 +104,112 @@ public class OrderControllerTest {
         }
     }
 
+    @Test
+    public void getOrderQueuePagesTest() {
+        String uri = path + "/queue";
+
+        List<OrderResponse> orders = orderService.getPendingOrders();
+        Set<String> codes = new HashSet<>();
+        int pages = 0;
+        int status;
+        try {
+            setUp();
+            String cursor = null;
+            do {
+                queueReadCoalescer.invalidate();
+                MockHttpServletResponse response = mvc
+                        .perform(MockMvcRequestBuilders
+                                .get(uri)
+                                .param("limit", "7")
+                                .param("cursor", cursor)
+                                .accept(MediaType.APPLICATION_JSON_VALUE))
+                        // Lettura in due fasi (chiavi, poi ordini con elementi): statement costanti per pagina
+                        .andExpect(SqlStatementBudget.atMost(2))
+                        .andReturn()
+                        .getResponse();
+                status = response.getStatus();
+                JSONArray jsonArray = new JSONArray(response.getContentAsString());
+                Assertions.assertTrue(jsonArray.length() <= 7);
+                for (int i = 0; i < jsonArray.length(); i++) {
+                    codes.add(jsonArray.getJSONObject(i).getString("orderCode"));
+                }
+                cursor = response.getHeader("X-Next-Cursor");
+                pages++;
+            } while (status == 200 && cursor != null);
+        } catch (Exception e) {
+            status = 0;
+        }
+
+        Assertions.assertEquals(200, status);
+        // Ogni ordine in attesa compare una sola volta scorrendo tutte le pagine
+        Assertions.assertEquals(orders.size(), codes.size());
+        Assertions.assertEquals(Math.max(1, (orders.size() + 6) / 7), pages);
+    }
+
+    @Test
+    public void getOrderQueueInvalidCursorTest() {
+        int cursorStatus;
+        int limitStatus;
+        try {
+            setUp();
+            cursorStatus = mvc.perform(MockMvcRequestBuilders
+                            .get(path + "/queue")
+                            .param("cursor", "non-valido")
+                            .accept(MediaType.APPLICATION_JSON_VALUE))
+                    .andReturn().getResponse().getStatus();
+            limitStatus = mvc.perform(MockMvcRequestBuilders
+                            .get(path + "/active")
+                            .param("limit", "1000")
+                            .accept(MediaType.APPLICATION_JSON_VALUE))
+                    .andReturn().getResponse().getStatus();
+        } catch (Exception e) {
+            cursorStatus = 0;
+            limitStatus = 0;
+        }
+
+        Assertions.assertEquals(400, cursorStatus);
+        Assertions.assertEquals(400, limitStatus);
+    }
+
+    @Test
+    public void streamOrderQueueTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        String content;
+        String orderCode;
+        try {
+            setUp();
+            MvcResult mvcResult = mvc
+                    .perform(MockMvcRequestBuilders
+                            .get(path + "/queue/stream")
+                            .accept(MediaType.TEXT_EVENT_STREAM_VALUE))
+                    .andReturn();
+            Assertions.assertTrue(mvcResult.getRequest().isAsyncStarted());
+
+            orderCode = orderService.createOrder(OrderFixtures.request(pizzas, "Stream Customer " + System.nanoTime()))
+                    .getOrderCode();
+
+            // L'invio avviene su un thread dedicato dopo il commit
+            long deadline = System.currentTimeMillis() + 5000;
+            content = mvcResult.getResponse().getContentAsString();
+            while (!content.contains(orderCode) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+                content = mvcResult.getResponse().getContentAsString();
+            }
+        } catch (Exception e) {
+            content = "";
+            orderCode = "n/a";
+        }
+
+        Assertions.assertTrue(content.startsWith("id:"), content);
+        Assertions.assertTrue(content.contains("event:SNAPSHOT"));
+        Assertions.assertTrue(content.contains("event:CREATED"));
+        Assertions.assertTrue(content.contains(orderCode));
+    }
+
     @Test
     public void getByOrderCodeTest() {
         List<OrderResponse> orders = orderService.getPendingOrders();
@@ -98,10 +225,12 @@ public class OrderControllerTest {
                     if (orderCode != null) { URL += "/" + orderCode; }
 
                     setUp();
+                    orderResponseCache.invalidate(orderCode);
                     MvcResult mvcResult = mvc
                             .perform(MockMvcRequestBuilders
                                     .get(URL)
                                     .accept(MediaType.APPLICATION_JSON_VALUE))
+                            .andExpect(SqlStatementBudget.atMost(2))
                             .andReturn();
 
                     MockHttpServletResponse response = mvcResult.getResponse();
@@ -126,6 +255,7 @@ public class OrderControllerTest {
 
         int status;
         String orderCode = "";
+        String writtenCookie = null;
         try {
             String customerName = "Test Customer " + System.currentTimeMillis();
             String request = "{ \"customerName\": \"" + customerName + "\", \"customerPhone\": \"1234567890\", \"items\": [{\"pizzaId\": 1, \"quantity\": 2}] }";
@@ -135,12 +265,14 @@ public class OrderControllerTest {
                             .post(uri)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
                             .content(request))
+                    .andExpect(SqlStatementBudget.atMost(8))
                     .andReturn();
 
             MockHttpServletResponse response = mvcResult.getResponse();
             String content = response.getContentAsString();
             JSONObject object = new JSONObject(content);
             if (object.has("orderCode")) { orderCode = String.valueOf(object.get("orderCode")); }
+            writtenCookie = response.getHeader(HttpHeaders.SET_COOKIE);
 
             status = response.getStatus();
         } catch (Exception e) {
@@ -150,6 +282,170 @@ public class OrderControllerTest {
         Assertions.assertEquals(201, status);
         Assertions.assertNotNull(orderCode);
         Assertions.assertFalse(orderCode.isEmpty());
+        // Cookie read-your-writes limitato all'ordine appena creato
+        Assertions.assertNotNull(writtenCookie);
+        Assertions.assertTrue(writtenCookie.startsWith("order_written_at="), writtenCookie);
+        Assertions.assertTrue(writtenCookie.contains(orderCode), writtenCookie);
+    }
+
+    @Test
+    public void createOrderIdempotencyKeyTest() {
+        String uri = path;
+
+        int firstStatus;
+        int secondStatus;
+        String firstOrderCode = "";
+        String secondOrderCode = "";
+        String replayed = "";
+        try {
+            String idempotencyKey = "test-" + System.nanoTime();
+            String customerName = "Idempotent Customer " + System.currentTimeMillis();
+            String request = "{ \"customerName\": \"" + customerName + "\", \"customerPhone\": \"1234567890\", \"items\": [{\"pizzaId\": 1, \"quantity\": 1}] }";
+            setUp();
+            MockHttpServletResponse first = mvc
+                    .perform(MockMvcRequestBuilders
+                            .post(uri)
+                            .header("Idempotency-Key", idempotencyKey)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(request))
+                    .andReturn().getResponse();
+            MockHttpServletResponse second = mvc
+                    .perform(MockMvcRequestBuilders
+                            .post(uri)
+                            .header("Idempotency-Key", idempotencyKey)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(request))
+                    .andReturn().getResponse();
+
+            firstOrderCode = String.valueOf(new JSONObject(first.getContentAsString()).get("orderCode"));
+            secondOrderCode = String.valueOf(new JSONObject(second.getContentAsString()).get("orderCode"));
+            replayed = second.getHeader("Idempotent-Replayed");
+            firstStatus = first.getStatus();
+            secondStatus = second.getStatus();
+        } catch (Exception e) {
+            firstStatus = 0;
+            secondStatus = 0;
+        }
+
+        Assertions.assertEquals(201, firstStatus);
+        Assertions.assertEquals(201, secondStatus);
+        Assertions.assertEquals(firstOrderCode, secondOrderCode);
+        Assertions.assertEquals("true", replayed);
+    }
+
+    @Test
+    public void createOrdersBatchTest() {
+        String uri = path + "/batch";
+
+        int status;
+        int created = -1;
+        int length = 0;
+        String firstOutcome = "";
+        String secondErrorCode = "";
+        String thirdErrorCode = "";
+        String fourthErrorCode = "";
+        try {
+            String customerName = "Batch Customer " + System.currentTimeMillis();
+            String validOrder = "{ \"customerName\": \"" + customerName + "\", \"customerPhone\": \"1234567890\", \"items\": [{\"pizzaId\": 1, \"quantity\": 1}] }";
+            String unknownPizzaOrder = "{ \"customerName\": \"" + customerName + " 2\", \"items\": [{\"pizzaId\": 999999, \"quantity\": 1}] }";
+            String invalidOrder = "{ \"customerName\": \"\", \"items\": [] }";
+            String request = "{ \"orders\": [" + validOrder + ", " + validOrder + ", " + unknownPizzaOrder + ", " + invalidOrder + "] }";
+            setUp();
+            MvcResult mvcResult = mvc
+                    .perform(MockMvcRequestBuilders
+                            .post(uri)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(request))
+                    // Un solo lotto di insert per tutti gli ordini validi, non un giro per ordine
+                    .andExpect(SqlStatementBudget.atMost(6))
+                    .andReturn();
+
+            MockHttpServletResponse response = mvcResult.getResponse();
+            JSONObject object = new JSONObject(response.getContentAsString());
+            created = object.getInt("created");
+            JSONArray results = object.getJSONArray("results");
+            length = results.length();
+            firstOutcome = results.getJSONObject(0).getString("outcome");
+            secondErrorCode = results.getJSONObject(1).getString("errorCode");
+            thirdErrorCode = results.getJSONObject(2).getString("errorCode");
+            fourthErrorCode = results.getJSONObject(3).getString("errorCode");
+            status = response.getStatus();
+        } catch (Exception e) {
+            status = 0;
+        }
+
+        Assertions.assertEquals(200, status);
+        Assertions.assertEquals(1, created);
+        Assertions.assertEquals(4, length);
+        Assertions.assertEquals("CREATED", firstOutcome);
+        Assertions.assertEquals("ORDER_DUPLICATE", secondErrorCode);
+        Assertions.assertEquals("PIZZA_NOT_FOUND", thirdErrorCode);
+        Assertions.assertEquals("VALIDATION_ERROR", fourthErrorCode);
+    }
+
+    @Test
+    public void markOrdersReadyBatchTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        // Due ordini in preparazione, uno ancora in attesa e un codice inesistente
+        String customerName = "Bulk Customer " + System.nanoTime();
+        String first = orderService.createOrder(OrderFixtures.request(pizzas, customerName + " 1")).getOrderCode();
+        String second = orderService.createOrder(OrderFixtures.request(pizzas, customerName + " 2")).getOrderCode();
+        String pending = orderService.createOrder(OrderFixtures.request(pizzas, customerName + " 3")).getOrderCode();
+        orderService.takeOrder(first);
+        orderService.takeOrder(second);
+
+        int status;
+        int updated = -1;
+        List<String> outcomes = new ArrayList<>();
+        String pendingErrorCode = "";
+        String unknownErrorCode = "";
+        int completeStatus;
+        int completed = -1;
+        try {
+            String request = "{ \"orderCodes\": [\"" + first + "\", \"" + second + "\", \"" + pending + "\", \"ORD-INESISTENTE\", \"" + first + "\"] }";
+            setUp();
+            MockHttpServletResponse response = mvc
+                    .perform(MockMvcRequestBuilders
+                            .put(path + "/batch/ready")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(request))
+                    .andReturn().getResponse();
+
+            JSONObject object = new JSONObject(response.getContentAsString());
+            updated = object.getInt("updated");
+            JSONArray results = object.getJSONArray("results");
+            for (int i = 0; i < results.length(); i++) {
+                outcomes.add(results.getJSONObject(i).getString("outcome"));
+            }
+            pendingErrorCode = results.getJSONObject(2).getString("errorCode");
+            unknownErrorCode = results.getJSONObject(3).getString("errorCode");
+            status = response.getStatus();
+
+            MockHttpServletResponse completeResponse = mvc
+                    .perform(MockMvcRequestBuilders
+                            .put(path + "/batch/complete")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content("{ \"orderCodes\": [\"" + first + "\", \"" + second + "\"] }"))
+                    .andReturn().getResponse();
+            completed = new JSONObject(completeResponse.getContentAsString()).getInt("updated");
+            completeStatus = completeResponse.getStatus();
+        } catch (Exception e) {
+            status = 0;
+            completeStatus = 0;
+        }
+
+        Assertions.assertEquals(200, status);
+        Assertions.assertEquals(2, updated);
+        // Il codice ripetuto compare una volta sola
+        Assertions.assertEquals(List.of("UPDATED", "UPDATED", "REJECTED", "REJECTED"), outcomes);
+        Assertions.assertEquals("ORDER_INVALID_STATUS", pendingErrorCode);
+        Assertions.assertEquals("ORDER_NOT_FOUND", unknownErrorCode);
+        Assertions.assertEquals(200, completeStatus);
+        Assertions.assertEquals(2, completed);
     }
 
     @Test
@@ -210,6 +506,24 @@ public class OrderControllerTest {
         }
     }
 
+    @Test
+    public void markOrdersReadyBatchEmptyTest() {
+        int status;
+        try {
+            setUp();
+            status = mvc
+                    .perform(MockMvcRequestBuilders
+                            .put(path + "/batch/ready")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content("{ \"orderCodes\": [] }"))
+                    .andReturn().getResponse().getStatus();
+        } catch (Exception e) {
+            status = 0;
+        }
+
+        Assertions.assertEquals(400, status);
+    }
+
     @Test
     public void getByOrderCodeNullTest() {
         String orderCode = "INVALID_CODE";
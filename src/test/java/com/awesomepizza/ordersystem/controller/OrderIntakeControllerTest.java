@@ -0,0 +1,104 @@
+package com.awesomepizza.ordersystem.controller;
+
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+/**
+ * Creazione ordini con acquisizione asincrona attiva: 202 immediato, poi salvataggio a blocchi
+ */
+@SpringBootTest(properties = "order.intake.async-enabled=true")
+public class OrderIntakeControllerTest {
+
+    private final String path = "/api/v1/orders";
+
+    protected MockMvc mvc;
+
+    @Autowired
+    WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    protected void setUp() {
+        mvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Test
+    public void createOrderAcceptedThenPersistedTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        String body = "{\"customerName\":\"Intake Customer " + System.nanoTime() + "\"," +
+                "\"customerPhone\":\"1234567890\",\"items\":[{\"pizzaId\":" + pizzas.get(0).getId() + ",\"quantity\":2}]}";
+        int status;
+        String location;
+        String acceptedState;
+        String persistedState = null;
+        int orderStatus = 0;
+        try {
+            setUp();
+            MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders
+                            .post(path)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andReturn().getResponse();
+            status = response.getStatus();
+            location = response.getHeader("Location");
+            JSONObject accepted = new JSONObject(response.getContentAsString());
+            acceptedState = accepted.getString("state");
+            String orderCode = accepted.getString("orderCode");
+
+            // Il thread di scrittura salva l'ordine entro pochi millisecondi
+            long deadline = System.currentTimeMillis() + 5000;
+            while (System.currentTimeMillis() < deadline) {
+                JSONObject intake = new JSONObject(mvc.perform(MockMvcRequestBuilders.get(location))
+                        .andReturn().getResponse().getContentAsString());
+                persistedState = intake.getString("state");
+                if (!"ACCEPTED".equals(persistedState)) {
+                    break;
+                }
+                Thread.sleep(20);
+            }
+            orderStatus = mvc.perform(MockMvcRequestBuilders.get(path + "/" + orderCode))
+                    .andReturn().getResponse().getStatus();
+        } catch (Exception e) {
+            status = 0;
+            location = null;
+            acceptedState = null;
+        }
+
+        Assertions.assertEquals(202, status);
+        Assertions.assertNotNull(location);
+        Assertions.assertEquals("ACCEPTED", acceptedState);
+        Assertions.assertEquals("PERSISTED", persistedState);
+        Assertions.assertEquals(200, orderStatus);
+    }
+
+    @Test
+    public void intakeStatusNotFoundTest() {
+        int status;
+        try {
+            setUp();
+            status = mvc.perform(MockMvcRequestBuilders.get(path + "/ORD-SCONOSCIUTO/intake"))
+                    .andReturn().getResponse().getStatus();
+        } catch (Exception e) {
+            status = 0;
+        }
+        Assertions.assertEquals(404, status);
+    }
+}
@@ -0,0 +1,94 @@
+package com.awesomepizza.ordersystem.repository;
+
+import com.awesomepizza.ordersystem.OrderFixtures;
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.service.OrderService;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import com.awesomepizza.ordersystem.service.impl.OrderResponseCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Verifica che le letture della coda e degli ordini attivi eseguano un numero fisso
+ * di query, indipendente dal numero di ordini (nessun N+1 su elementi e pizze).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class OrderFetchPlanTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderResponseCache orderResponseCache;
+
+    @Test
+    public void queueStatementCountTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        orderService.createOrder(OrderFixtures.request(pizzas, "FetchPlan Customer " + System.nanoTime(), 3));
+        long before = countStatements(orderService::getPendingOrders);
+        int queueLength = orderService.getPendingOrders().size();
+
+        for (int i = 0; i < 5; i++) {
+            orderService.createOrder(OrderFixtures.request(pizzas, "FetchPlan Customer " + System.nanoTime(), 2 + i));
+        }
+        long after = countStatements(orderService::getPendingOrders);
+
+        Assertions.assertEquals(queueLength + 5, orderService.getPendingOrders().size());
+        // Fase 1 (id) + fase 2 (ordini, elementi e pizze)
+        Assertions.assertEquals(2, before);
+        Assertions.assertEquals(2, after);
+        Assertions.assertEquals(2, countStatements(orderService::getActiveOrders));
+    }
+
+    @Test
+    public void queueProjectionLoadsNoEntitiesTest() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        orderService.getPendingOrders();
+        orderService.getActiveOrders();
+
+        // Le letture della cucina sono proiezioni: nessuna entità gestita, nessun flush
+        Assertions.assertEquals(0, statistics.getEntityLoadCount());
+        Assertions.assertEquals(0, statistics.getFlushCount());
+    }
+
+    @Test
+    public void orderByCodeStatementCountTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        OrderResponse order = orderService.createOrder(OrderFixtures.request(pizzas, "FetchPlan Customer " + System.nanoTime(), 4));
+        // Lettura dal database (senza la voce in cache), poi dalla cache
+        orderResponseCache.invalidate(order.getOrderCode());
+        Assertions.assertEquals(1, countStatements(() -> orderService.getOrderByCode(order.getOrderCode())));
+        Assertions.assertEquals(0, countStatements(() -> orderService.getOrderByCode(order.getOrderCode())));
+    }
+
+    private long countStatements(Supplier<?> read) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        read.get();
+        return statistics.getPrepareStatementCount();
+    }
+}
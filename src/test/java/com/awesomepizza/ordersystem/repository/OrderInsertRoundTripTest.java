@@ -0,0 +1,61 @@
+package com.awesomepizza.ordersystem.repository;
+
+import com.awesomepizza.ordersystem.OrderFixtures;
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.service.OrderService;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Misura i round trip JDBC per la creazione di un ordine al variare del numero di elementi.
+ *
+ * Con id IDENTITY ogni ordine con N elementi costava N + 1 INSERT separati; con le sequenze
+ * pooled e il batch JDBC il numero di statement resta costante.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class OrderInsertRoundTripTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void createOrderRoundTripsTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Riscaldamento: la prima allocazione di un blocco di id legge le sequenze
+        // (su sequenze appena create dalle migrazioni le letture sono due, in due ordini distinti)
+        orderService.createOrder(OrderFixtures.request(pizzas, "RoundTrip Customer " + System.nanoTime(), 1));
+        orderService.createOrder(OrderFixtures.request(pizzas, "RoundTrip Customer " + System.nanoTime(), 1));
+
+        List<Long> statementsPerOrder = new ArrayList<>();
+        for (int items : new int[]{1, 10, 40}) {
+            statistics.clear();
+            orderService.createOrder(OrderFixtures.request(pizzas, "RoundTrip Customer " + System.nanoTime(), items));
+            statementsPerOrder.add(statistics.getPrepareStatementCount());
+        }
+
+        // Controllo duplicati + INSERT ordine + batch elementi, più al massimo una lettura di sequenza
+        for (Long statements : statementsPerOrder) {
+            Assertions.assertTrue(statements <= 5, "Statement per ordine: " + statementsPerOrder);
+        }
+    }
+}
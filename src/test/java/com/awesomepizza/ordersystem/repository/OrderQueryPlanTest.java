@@ -0,0 +1,302 @@
+package com.awesomepizza.ordersystem.repository;
+
+import com.awesomepizza.ordersystem.model.OrderStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Regressione sui piani delle query più frequenti: ognuna deve usare il proprio indice.
+ *
+ * Le query non sono copiate nel test: ogni metodo di OrderRepository (con transizioni e archivio),
+ * OrderOutboxRepository e IdempotencyRecordRepository viene eseguito in una transazione annullata e
+ * lo statement che arriva al driver viene catturato dal listener di datasource-proxy, quindi
+ * una modifica alla query che le fa perdere l'indice fa fallire il test.
+ *
+ * Le tabelle di test sono piccole e con pochi dati il planner preferirebbe comunque una
+ * scansione sequenziale; con enable_seqscan = off la sceglie solo se nessun indice è
+ * utilizzabile, cioè proprio quando un indice è stato rimosso o la query non lo usa più.
+ * Lo statement catturato viene preparato con i tipi dei suoi parametri e spiegato con piano generico,
+ * come dopo le prime esecuzioni: un indice parziale non vale per un parametro (es. status = $1).
+ */
+@SpringBootTest
+public class OrderQueryPlanTest {
+
+    private static final StatementCapture CAPTURE = new StatementCapture();
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void pendingQueueUsesStatusIndexTest() throws Exception {
+        assertUsesIndex("idx_orders_status_created_at_id",
+                () -> orderRepository.findIdsByStatus(OrderStatus.PENDING, Limit.of(50)));
+        assertUsesIndex("idx_orders_status_created_at_id",
+                () -> orderRepository.findIdsByStatusAfter(OrderStatus.PENDING, LocalDateTime.now(), 0L, Limit.of(50)));
+        // Presa in carico del prossimo ordine (OrderTransitionRepositoryImpl)
+        assertUsesIndex("idx_orders_status_created_at_id",
+                () -> orderRepository.claimNextPending(LocalDateTime.now()));
+    }
+
+    @Test
+    public void activeOrdersUsePartialIndexTest() throws Exception {
+        // Lo stato COMPLETED è una costante nella query JPQL, quindi un letterale nell'SQL
+        assertUsesIndex("idx_orders_active_created_at_id",
+                () -> orderRepository.findActiveOrderIds(Limit.of(50)));
+        assertUsesIndex("idx_orders_active_created_at_id",
+                () -> orderRepository.findActiveOrderIdsAfter(LocalDateTime.now(), 0L, Limit.of(50)));
+    }
+
+    @Test
+    public void orderItemsJoinUsesForeignKeyIndexTest() throws Exception {
+        assertUsesIndex("idx_order_items_order_id",
+                () -> orderRepository.findOrderItemRowsByIdIn(List.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    public void orderByCodeUsesIndexTest() throws Exception {
+        // Il nome del vincolo unico dipende da chi ha creato la tabella (Hibernate o V1)
+        JsonNode plan = explain(capture(() -> orderRepository.findWithItemsByOrderCode("ABC")));
+        Assertions.assertFalse(plan.findValuesAsText("Node Type").contains("Seq Scan"), plan.toString());
+    }
+
+    @Test
+    public void duplicateCheckUsesFingerprintIndexTest() throws Exception {
+        assertUsesIndex("idx_orders_fingerprint_created_at",
+                () -> orderRepository.findRecentFingerprints(List.of("a", "b"), LocalDateTime.now()));
+    }
+
+    @Test
+    public void outboxAndIdempotencyUseIndexesTest() throws Exception {
+        // Prossimo blocco: eventi in attesa, con la ricerca per ordine di quelli precedenti
+        assertUsesIndex("idx_order_outbox_pending_order_code", () -> orderOutboxRepository.lockNextBatch(100));
+        assertUsesIndex("idx_order_outbox_processed_at_id",
+                () -> orderOutboxRepository.deleteProcessedBefore(LocalDateTime.now()));
+        assertUsesIndex("idx_idempotency_keys_expires_at",
+                () -> idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+    }
+
+    @Test
+    public void archiveQueriesUseIndexesTest() throws Exception {
+        // Selezione di un blocco da archiviare (OrderArchiveRepositoryImpl)
+        assertUsesIndex("idx_orders_completed_at_id",
+                () -> orderRepository.archiveCompletedBefore(LocalDateTime.now(), 500, LocalDateTime.now()));
+        assertUsesIndex("idx_order_items_archive_order_id", () -> orderRepository.findArchivedByOrderCode("ABC"));
+        assertUsesIndex("uk_orders_archive_order_code", () -> orderRepository.findArchivedOrderCodes(List.of("ABC")));
+    }
+
+    private void assertUsesIndex(String indexName, Runnable repositoryCall) throws Exception {
+        QueryInfo query = capture(repositoryCall);
+        JsonNode plan = explain(query);
+        List<String> indexes = plan.findValuesAsText("Index Name");
+        Assertions.assertTrue(indexes.contains(indexName),
+                "La query non usa " + indexName + " (indici: " + indexes + "): " + query.getQuery() + "\n" + plan);
+    }
+
+    /**
+     * Esegue il metodo del repository in una transazione annullata e restituisce l'unico statement eseguito
+     */
+    private QueryInfo capture(Runnable repositoryCall) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<QueryInfo> queries = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            CAPTURE.start();
+            try {
+                repositoryCall.run();
+            } catch (RuntimeException e) {
+                CAPTURE.stop();
+                throw e;
+            }
+            return CAPTURE.stop();
+        });
+        Assertions.assertEquals(1, queries.size(),
+                () -> queries.stream().map(QueryInfo::getQuery).collect(Collectors.joining("\n")));
+        return queries.get(0);
+    }
+
+    /**
+     * Piano generico dello statement preparato; EXPLAIN senza ANALYZE non lo esegue,
+     * e con il piano generico i valori dei parametri non contano
+     */
+    private JsonNode explain(QueryInfo query) throws Exception {
+        List<ParameterSetOperation> parameters = parameters(query);
+        StringBuilder sql = new StringBuilder();
+        int index = 0;
+        for (char c : query.getQuery().toCharArray()) {
+            sql.append(c == '?' ? "$" + (++index) : String.valueOf(c));
+        }
+        Assertions.assertEquals(index, parameters.size(), query.getQuery());
+        String types = parameters.stream().map(OrderQueryPlanTest::parameterType).collect(Collectors.joining(", "));
+        String arguments = parameters.stream().map(parameter -> "NULL").collect(Collectors.joining(", "));
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String json = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+            jdbcTemplate.execute("PREPARE plan_check" + (types.isEmpty() ? "" : " (" + types + ")") + " AS " + sql);
+            try {
+                return jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) EXECUTE plan_check"
+                        + (arguments.isEmpty() ? "" : " (" + arguments + ")"), String.class);
+            } finally {
+                jdbcTemplate.execute("DEALLOCATE plan_check");
+            }
+        });
+        return objectMapper.readTree(json);
+    }
+
+    /**
+     * Parametri dello statement in ordine di posizione (sempre un solo gruppo: nessun batch)
+     */
+    private static List<ParameterSetOperation> parameters(QueryInfo query) {
+        List<ParameterSetOperation> parameters = new ArrayList<>(
+                query.getParametersList().isEmpty() ? List.of() : query.getParametersList().get(0));
+        parameters.sort(Comparator.comparingInt(parameter -> (Integer) parameter.getArgs()[0]));
+        return parameters;
+    }
+
+    /**
+     * Tipo PostgreSQL del parametro, dal metodo JDBC con cui è stato impostato
+     */
+    private static String parameterType(ParameterSetOperation parameter) {
+        Object[] args = parameter.getArgs();
+        switch (parameter.getMethod().getName()) {
+            case "setString":
+                return "varchar";
+            case "setInt":
+                return "integer";
+            case "setLong":
+                return "bigint";
+            case "setTimestamp":
+                return "timestamp";
+            case "setBigDecimal":
+                return "numeric";
+            case "setBoolean":
+                return "boolean";
+            case "setArray":
+                return "varchar[]";
+            case "setNull":
+                return sqlType((Integer) args[1]);
+            case "setObject":
+                return args.length > 2 ? sqlType((Integer) args[2]) : javaType(args[1]);
+            default:
+                throw new IllegalStateException("Parametro non gestito: " + parameter.getMethod());
+        }
+    }
+
+    private static String sqlType(int sqlType) {
+        return switch (sqlType) {
+            case Types.VARCHAR, Types.CHAR, Types.LONGVARCHAR -> "varchar";
+            case Types.INTEGER, Types.SMALLINT -> "integer";
+            case Types.BIGINT -> "bigint";
+            case Types.TIMESTAMP -> "timestamp";
+            case Types.NUMERIC, Types.DECIMAL -> "numeric";
+            case Types.BOOLEAN, Types.BIT -> "boolean";
+            default -> throw new IllegalStateException("Tipo SQL non gestito: " + sqlType);
+        };
+    }
+
+    private static String javaType(Object value) {
+        if (value instanceof String) {
+            return "varchar";
+        } else if (value instanceof Integer) {
+            return "integer";
+        } else if (value instanceof Long) {
+            return "bigint";
+        } else if (value instanceof LocalDateTime || value instanceof java.sql.Timestamp) {
+            return "timestamp";
+        } else if (value instanceof BigDecimal) {
+            return "numeric";
+        } else if (value instanceof Boolean) {
+            return "boolean";
+        }
+        throw new IllegalStateException("Tipo Java non gestito: " + value);
+    }
+
+    /**
+     * Statement eseguiti dal thread corrente tra start e stop, come arrivano al driver
+     */
+    static class StatementCapture implements QueryExecutionListener {
+
+        private final ThreadLocal<List<QueryInfo>> current = new ThreadLocal<>();
+
+        void start() {
+            current.set(new ArrayList<>());
+        }
+
+        List<QueryInfo> stop() {
+            List<QueryInfo> queries = current.get();
+            current.remove();
+            return queries;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            List<QueryInfo> queries = current.get();
+            if (queries != null) {
+                queries.addAll(queryInfoList);
+            }
+        }
+    }
+
+    /**
+     * Aggiunge la cattura al DataSource dell'applicazione prima che venga usato
+     */
+    @TestConfiguration
+    static class CaptureConfig {
+
+        @Bean
+        static BeanPostProcessor statementCapturePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof ProxyDataSource dataSource) {
+                        dataSource.getProxyConfig().getQueryListener().addListener(CAPTURE);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
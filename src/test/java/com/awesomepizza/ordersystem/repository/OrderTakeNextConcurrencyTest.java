@@ -0,0 +1,113 @@
+package com.awesomepizza.ordersystem.repository;
+
+import com.awesomepizza.ordersystem.OrderFixtures;
+import com.awesomepizza.ordersystem.dto.BatchOrderResult;
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.model.OrderStatus;
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.service.OrderService;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Più pizzaioli prendono in carico "il prossimo ordine" in concorrenza: con SKIP LOCKED ogni ordine
+ * va a un solo pizzaiolo.
+ *
+ * "Il prossimo ordine" è il più vecchio in attesa dell'intero database: il test retrodata i propri ordini
+ * perché siano loro i primi della coda, e fa tante prese in carico quanti sono gli ordini creati, così
+ * non tocca quelli degli altri test. Il throughput per numero di pizzaioli è in
+ * OrderTakeNextConcurrencyBenchmarkTest.
+ */
+@SpringBootTest
+public class OrderTakeNextConcurrencyTest {
+
+    private static final int TAKERS = 8;
+    private static final int ORDERS = 32;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void concurrentTakersClaimEachOrderOnceTest() throws Exception {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+        Set<String> created = createOrders(pizzas);
+        jdbcTemplate.update("UPDATE pizzeria.orders SET created_at = created_at - INTERVAL '100 years' " +
+                "WHERE order_code = ANY(?)", (Object) created.toArray(new String[0]));
+
+        List<OrderResponse> claims = new CopyOnWriteArrayList<>();
+        Semaphore remaining = new Semaphore(ORDERS);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(TAKERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < TAKERS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    while (remaining.tryAcquire()) {
+                        Optional<OrderResponse> order = orderService.takeNextOrder();
+                        Assertions.assertTrue(order.isPresent());
+                        claims.add(order.get());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Codici a due a due distinti: esattamente gli ordini creati dal test, ciascuno preso una volta
+        Set<String> claimed = new HashSet<>();
+        for (OrderResponse claim : claims) {
+            Assertions.assertTrue(claimed.add(claim.getOrderCode()), "Preso due volte: " + claim.getOrderCode());
+            Assertions.assertEquals(OrderStatus.IN_PROGRESS, claim.getStatus());
+        }
+        Assertions.assertEquals(created, claimed);
+
+        // Nel database ogni ordine è IN_PROGRESS, con un solo evento di presa in carico
+        for (String orderCode : created) {
+            Assertions.assertEquals(OrderStatus.IN_PROGRESS,
+                    orderService.getOrderByCode(orderCode).orElseThrow().getStatus());
+            Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM pizzeria.order_outbox " +
+                    "WHERE order_code = ? AND event_type = 'TAKEN'", Integer.class, orderCode));
+        }
+    }
+
+    private Set<String> createOrders(List<Pizza> pizzas) {
+        Set<String> orderCodes = new HashSet<>();
+        for (BatchOrderResult result : orderService.createOrders(
+                OrderFixtures.requests(pizzas, "TakeNext Customer", ORDERS)).getResults()) {
+            Assertions.assertNotNull(result.getOrderCode(), result.getMessage());
+            orderCodes.add(result.getOrderCode());
+        }
+        return orderCodes;
+    }
+}
@@ -0,0 +1,99 @@
+package com.awesomepizza.ordersystem.repository;
+
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+/**
+ * Cache di secondo livello delle pizze e cache delle query del menu:
+ * letture ripetute senza statement, invalidazione dopo una scrittura del servizio
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class PizzaCacheTest {
+
+    @Autowired
+    private PizzaRepository pizzaRepository;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void menuQueryCachedTest() {
+        Statistics statistics = statistics();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        List<Pizza> first = pizzaRepository.findByAvailableTrue();
+        List<Pizza> second = pizzaRepository.findByAvailableTrue();
+
+        // Un solo statement: la seconda lettura arriva da cache delle query + cache delle entità
+        Assertions.assertEquals(first.size(), second.size());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getQueryCacheHitCount());
+        Assertions.assertEquals(0, statistics.getSecondLevelCacheMissCount());
+    }
+
+    @Test
+    public void pizzaByIdCachedTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+        Long id = pizzas.get(0).getId();
+
+        Statistics statistics = statistics();
+        pizzaRepository.findById(id);
+        statistics.clear();
+        Assertions.assertTrue(pizzaRepository.findById(id).isPresent());
+
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getSecondLevelCacheHitCount());
+        // Statistiche esposte come metriche
+        Assertions.assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tag("region", Pizza.CACHE_REGION).tag("result", "hit").functionCounter());
+    }
+
+    @Test
+    public void serviceWriteInvalidatesMenuTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+        Long id = pizzas.get(0).getId();
+        pizzaRepository.findByAvailableTrue();
+
+        try {
+            pizzaService.updatePizzaAvailability(id, false);
+
+            // La query del menu è stata invalidata dalla scrittura e la pizza in cache è aggiornata
+            Statistics statistics = statistics();
+            statistics.clear();
+            List<Pizza> available = pizzaRepository.findByAvailableTrue();
+            Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+            Assertions.assertTrue(available.stream().noneMatch(pizza -> pizza.getId().equals(id)));
+            Assertions.assertFalse(pizzaRepository.findById(id).orElseThrow().getAvailable());
+        } finally {
+            pizzaService.updatePizzaAvailability(id, true);
+        }
+        Assertions.assertTrue(pizzaRepository.findByAvailableTrue().stream().anyMatch(pizza -> pizza.getId().equals(id)));
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -1,13 +1,25 @@
 package com.awesomepizza.ordersystem.service;
 
+import com.awesomepizza.ordersystem.OrderFixtures;
+import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
 import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.exception.OrderErrorCode;
+import com.awesomepizza.ordersystem.exception.OrderException;
+import com.awesomepizza.ordersystem.model.OrderStatus;
+import com.awesomepizza.ordersystem.model.Pizza;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SpringBootTest
 public class OrderServiceTest {
@@ -15,6 +27,9 @@ public class OrderServiceTest {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private PizzaService pizzaService;
+
     @Test
     public void getOrderByCodeTest() {
         List<OrderResponse> orders = orderService.getPendingOrders();
@@ -56,4 +71,83 @@ public class OrderServiceTest {
 
         }
     }
+
+    @Test
+    public void duplicateOrderTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas != null && pizzas.size() >= 2) {
+            String customerName = "Duplicate Customer " + System.nanoTime();
+            orderService.createOrder(OrderFixtures.request(customerName,
+                    OrderFixtures.item(pizzas.get(0).getId(), 1, "Senza cipolle"),
+                    OrderFixtures.item(pizzas.get(1).getId(), 2, null)));
+
+            // Stessi elementi in ordine diverso e note con maiuscole/spazi diversi
+            CreateOrderRequest duplicate = OrderFixtures.request(customerName,
+                    OrderFixtures.item(pizzas.get(1).getId(), 2, null),
+                    OrderFixtures.item(pizzas.get(0).getId(), 1, "  senza cipolle "));
+
+            OrderException exception = Assertions.assertThrows(OrderException.class,
+                    () -> orderService.createOrder(duplicate));
+            Assertions.assertEquals(OrderErrorCode.ORDER_DUPLICATE, exception.getOrderErrorCode());
+        }
+    }
+
+    @Test
+    public void concurrentTakeCompareAndSetTest() throws Exception {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+        OrderResponse order = orderService.createOrder(OrderFixtures.request("CAS Customer " + System.nanoTime(),
+                OrderFixtures.item(pizzas.get(0).getId(), 2, "Ben cotta")));
+        String orderCode = order.getOrderCode();
+
+        // Otto pizzaioli prendono lo stesso ordine: un solo UPDATE condizionale va a buon fine
+        int takers = 8;
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger alreadyTaken = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(takers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < takers; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.takeOrder(orderCode);
+                        taken.incrementAndGet();
+                    } catch (OrderException e) {
+                        // Perde la gara sul lock in memoria (attesa oltre il timeout) oppure sull'UPDATE
+                        Assertions.assertTrue(e.getOrderErrorCode() == OrderErrorCode.ORDER_ALREADY_TAKEN
+                                || e.getOrderErrorCode() == OrderErrorCode.ORDER_LOCKED, e.getMessage());
+                        alreadyTaken.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertEquals(1, taken.get());
+        Assertions.assertEquals(takers - 1, alreadyTaken.get());
+
+        // Transizione non ammessa dallo stato attuale
+        OrderException exception = Assertions.assertThrows(OrderException.class,
+                () -> orderService.completeOrder(orderCode));
+        Assertions.assertEquals(OrderErrorCode.ORDER_INVALID_STATUS, exception.getOrderErrorCode());
+
+        // La risposta della transizione contiene ordine, timestamp ed elementi
+        OrderResponse ready = orderService.markOrderAsReady(orderCode).orElseThrow();
+        Assertions.assertEquals(OrderStatus.READY, ready.getStatus());
+        Assertions.assertNotNull(ready.getTakenAt());
+        Assertions.assertEquals(1, ready.getItems().size());
+        Assertions.assertEquals(2, ready.getItems().get(0).getQuantity());
+        Assertions.assertEquals(pizzas.get(0).getName(), ready.getItems().get(0).getPizzaName());
+
+        Assertions.assertTrue(orderService.markOrderAsReady("INVALID_CODE").isEmpty());
+    }
 }
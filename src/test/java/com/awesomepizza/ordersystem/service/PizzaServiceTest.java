@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,6 +17,9 @@ public class PizzaServiceTest {
     @Autowired
     private PizzaService pizzaService;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Test
     public void getAllPizzasTest() {
         List<Pizza> pizzas = pizzaService.getAllPizzas();
@@ -81,4 +86,39 @@ public class PizzaServiceTest {
         List<Pizza> availablePizzas = pizzaService.getAvailablePizzas();
         Assertions.assertEquals(availablePizzas.size(), count);
     }
+
+    @Test
+    public void menuVersionTest() {
+        List<Pizza> pizzas = pizzaService.getAllPizzas();
+        if (pizzas != null && !pizzas.isEmpty()) {
+            Pizza pizza = pizzas.get(0);
+            long version = pizzaService.getMenuVersion();
+
+            Optional<Pizza> updatedPizza = pizzaService.updatePizzaAvailability(pizza.getId(), pizza.getAvailable());
+            Assertions.assertTrue(updatedPizza.isPresent());
+            Assertions.assertTrue(pizzaService.getMenuVersion() > version);
+            Assertions.assertEquals(pizza.getAvailable(), pizzaService.getPizzaById(pizza.getId()).get().getAvailable());
+        }
+    }
+
+    @Test
+    public void rolledBackUpdateKeepsMenuTest() {
+        List<Pizza> pizzas = pizzaService.getAllPizzas();
+        if (pizzas != null && !pizzas.isEmpty()) {
+            Pizza pizza = pizzas.get(0);
+            long version = pizzaService.getMenuVersion();
+
+            // Modifica in una transazione esterna che poi viene annullata
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                pizzaService.updatePizzaAvailability(pizza.getId(), !pizza.getAvailable());
+                // Prima del commit il menu in memoria non cambia
+                Assertions.assertEquals(version, pizzaService.getMenuVersion());
+                status.setRollbackOnly();
+            });
+
+            Assertions.assertEquals(version, pizzaService.getMenuVersion());
+            Assertions.assertEquals(pizza.getAvailable(), pizzaService.getPizzaById(pizza.getId()).get().getAvailable());
+            Assertions.assertEquals(pizzaService.getAvailablePizzas().size(), pizzaService.countAvailablePizzas());
+        }
+    }
 }
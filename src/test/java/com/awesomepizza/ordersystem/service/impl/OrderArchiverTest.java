@@ -0,0 +1,102 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.OrderFixtures;
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.exception.OrderErrorCode;
+import com.awesomepizza.ordersystem.exception.OrderException;
+import com.awesomepizza.ordersystem.model.OrderStatus;
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.repository.OrderRepository;
+import com.awesomepizza.ordersystem.service.OrderService;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Archiviazione degli ordini completati: spostamento nelle tabelle di archivio
+ * e lettura per codice che ricade sull'archivio
+ */
+@SpringBootTest
+public class OrderArchiverTest {
+
+    private static final LocalDateTime LONG_AGO = LocalDateTime.of(2000, 1, 1, 12, 0);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderResponseCache orderResponseCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void completedOrderIsArchivedTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        OrderResponse order = orderService.createOrder(OrderFixtures.request("Archive Customer " + System.nanoTime(), OrderFixtures.item(pizzas.get(0).getId(), 2, "Archivio")));
+        String code = order.getOrderCode();
+        orderService.takeOrder(code);
+        orderService.markOrderAsReady(code);
+        orderService.completeOrder(code);
+        jdbcTemplate.update("UPDATE pizzeria.orders SET completed_at = ? WHERE order_code = ?", LONG_AGO, code);
+
+        Assertions.assertTrue(orderArchiver.archiveCompleted() >= 1);
+        Assertions.assertFalse(orderRepository.existsByOrderCode(code));
+
+        // Lettura per codice dall'archivio, con gli stessi elementi
+        orderResponseCache.invalidate(code);
+        Optional<OrderResponse> archived = orderService.getOrderByCode(code);
+        Assertions.assertTrue(archived.isPresent());
+        Assertions.assertEquals(OrderStatus.COMPLETED, archived.get().getStatus());
+        Assertions.assertEquals(LONG_AGO, archived.get().getCompletedAt());
+        Assertions.assertEquals(order.getItems().size(), archived.get().getItems().size());
+        Assertions.assertEquals(order.getItems().get(0).getPizzaName(), archived.get().getItems().get(0).getPizzaName());
+
+        // Una transizione su un ordine archiviato è rifiutata come su un ordine completato
+        int status = 0;
+        try {
+            orderService.completeOrder(code);
+        } catch (OrderException e) {
+            status = e.getOrderErrorCode().getHttpStatus().value();
+            Assertions.assertEquals(OrderErrorCode.ORDER_INVALID_STATUS, e.getOrderErrorCode());
+        }
+        Assertions.assertEquals(409, status);
+    }
+
+    @Test
+    public void activeOrderIsNotArchivedTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        OrderResponse order = orderService.createOrder(OrderFixtures.request("Archive Active " + System.nanoTime(), OrderFixtures.item(pizzas.get(0).getId(), 2, "Archivio")));
+        String code = order.getOrderCode();
+        // Solo lo stato conta: un ordine in attesa non viene archiviato nemmeno con una data vecchia
+        jdbcTemplate.update("UPDATE pizzeria.orders SET completed_at = ? WHERE order_code = ?", LONG_AGO, code);
+
+        orderArchiver.archiveCompleted();
+        Assertions.assertTrue(orderRepository.existsByOrderCode(code));
+        Assertions.assertTrue(orderRepository.findArchivedOrderCodes(List.of(code)).isEmpty());
+    }
+}
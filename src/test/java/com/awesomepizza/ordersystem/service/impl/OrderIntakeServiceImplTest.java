@@ -0,0 +1,122 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.OrderFixtures;
+import com.awesomepizza.ordersystem.dto.CreateOrderRequest;
+import com.awesomepizza.ordersystem.dto.OrderIntakeStatus;
+import com.awesomepizza.ordersystem.exception.OrderErrorCode;
+import com.awesomepizza.ordersystem.exception.OrderException;
+import com.awesomepizza.ordersystem.model.Order;
+import com.awesomepizza.ordersystem.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+public class OrderIntakeServiceImplTest {
+
+    @Test
+    public void fullBufferRejectsTest() {
+        OrderFactory orderFactory = Mockito.mock(OrderFactory.class);
+        Mockito.when(orderFactory.build(any(), anyString())).thenAnswer(invocation -> {
+            Order order = new Order();
+            order.setOrderCode("ORD-" + System.nanoTime());
+            return order;
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Thread di scrittura non avviato: la coda (da 2) si riempie
+        OrderIntakeServiceImpl intake = new OrderIntakeServiceImpl(orderFactory, Mockito.mock(OrderRepository.class),
+                new RecentOrderFingerprints(5, 1000), Mockito.mock(ApplicationEventPublisher.class),
+                Mockito.mock(OrderOutbox.class), new RecentOrderWrites(2000, 1000),
+                Mockito.mock(QueueReadCoalescer.class), Mockito.mock(PlatformTransactionManager.class), meterRegistry, true, 2, 10, 10, 10, 1000);
+
+        OrderIntakeStatus first = intake.submit(request("Cliente 1"));
+        intake.submit(request("Cliente 2"));
+        OrderException exception = Assertions.assertThrows(OrderException.class,
+                () -> intake.submit(request("Cliente 3")));
+
+        Assertions.assertEquals(OrderErrorCode.ORDER_INTAKE_FULL, exception.getOrderErrorCode());
+        Assertions.assertEquals(OrderIntakeStatus.State.ACCEPTED,
+                intake.getStatus(first.getOrderCode()).orElseThrow().getState());
+        Assertions.assertEquals(2.0, meterRegistry.get("order.intake.buffered").gauge().value());
+
+        // Lo stesso ordine ripetuto subito è un duplicato
+        OrderException duplicate = Assertions.assertThrows(OrderException.class,
+                () -> intake.submit(request("Cliente 1")));
+        Assertions.assertEquals(OrderErrorCode.ORDER_DUPLICATE, duplicate.getOrderErrorCode());
+    }
+
+    @Test
+    public void failedOrderCanBeResubmittedTest() throws Exception {
+        OrderRepository orderRepository = Mockito.mock(OrderRepository.class);
+        Mockito.when(orderRepository.saveAll(any())).thenThrow(new IllegalStateException("Database non disponibile"));
+        OrderIntakeServiceImpl intake = intake(orderRepository);
+        intake.start();
+        try {
+            OrderIntakeStatus accepted = intake.submit(request("Cliente fallito"));
+            Assertions.assertEquals(OrderIntakeStatus.State.FAILED, awaitFinalState(intake, accepted.getOrderCode()));
+
+            // Nulla è stato salvato: lo stesso ordine non è un duplicato
+            Assertions.assertDoesNotThrow(() -> intake.submit(request("Cliente fallito")));
+        } finally {
+            intake.stop();
+        }
+    }
+
+    @Test
+    public void stopPersistsAcceptedOrdersTest() throws Exception {
+        OrderRepository orderRepository = Mockito.mock(OrderRepository.class);
+        OrderIntakeServiceImpl intake = intake(orderRepository);
+        intake.start();
+
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            codes.add(intake.submit(request("Cliente in chiusura " + i)).getOrderCode());
+        }
+        intake.stop();
+
+        // Ogni ordine a cui è stato risposto 202 viene salvato; dopo lo stop non se ne accettano altri
+        for (String code : codes) {
+            Assertions.assertEquals(OrderIntakeStatus.State.PERSISTED, intake.getStatus(code).orElseThrow().getState());
+        }
+        OrderException closed = Assertions.assertThrows(OrderException.class,
+                () -> intake.submit(request("Cliente tardivo")));
+        Assertions.assertEquals(OrderErrorCode.ORDER_INTAKE_CLOSED, closed.getOrderErrorCode());
+    }
+
+    private OrderIntakeServiceImpl intake(OrderRepository orderRepository) {
+        OrderFactory orderFactory = Mockito.mock(OrderFactory.class);
+        Mockito.when(orderFactory.build(any(), anyString())).thenAnswer(invocation -> {
+            Order order = new Order();
+            order.setOrderCode("ORD-" + System.nanoTime());
+            order.setFingerprint(invocation.getArgument(1));
+            return order;
+        });
+        return new OrderIntakeServiceImpl(orderFactory, orderRepository,
+                new RecentOrderFingerprints(5, 1000), Mockito.mock(ApplicationEventPublisher.class),
+                Mockito.mock(OrderOutbox.class), new RecentOrderWrites(2000, 1000),
+                Mockito.mock(QueueReadCoalescer.class), Mockito.mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), true, 100, 5, 10, 10, 1000);
+    }
+
+    private OrderIntakeStatus.State awaitFinalState(OrderIntakeServiceImpl intake, String orderCode) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        OrderIntakeStatus.State state = intake.getStatus(orderCode).orElseThrow().getState();
+        while (state == OrderIntakeStatus.State.ACCEPTED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            state = intake.getStatus(orderCode).orElseThrow().getState();
+        }
+        return state;
+    }
+
+    private CreateOrderRequest request(String customerName) {
+        return OrderFixtures.request(customerName, OrderFixtures.item(1L, 1, null));
+    }
+}
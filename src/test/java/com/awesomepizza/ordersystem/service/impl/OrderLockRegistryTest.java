@@ -0,0 +1,76 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.exception.OrderErrorCode;
+import com.awesomepizza.ordersystem.exception.OrderException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class OrderLockRegistryTest {
+
+    @Test
+    public void sameOrderContentionTest() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderLockRegistry registry = new OrderLockRegistry(meterRegistry, 16, 50);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> registry.withLock("ORD-A", () -> {
+            locked.countDown();
+            await(release);
+            return "ok";
+        }));
+        Assertions.assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // Stesso ordine: il lock non si libera entro il timeout
+        OrderException exception = Assertions.assertThrows(OrderException.class,
+                () -> registry.withLock("ORD-A", () -> "ko"));
+        Assertions.assertEquals(OrderErrorCode.ORDER_LOCKED, exception.getOrderErrorCode());
+
+        release.countDown();
+        Assertions.assertEquals("ok", holder.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("ok", registry.withLock("ORD-A", () -> "ok"));
+
+        Assertions.assertEquals(2, count(meterRegistry, "immediate"));
+        Assertions.assertEquals(1, count(meterRegistry, "timeout"));
+    }
+
+    @Test
+    public void differentOrdersSameStripeTest() throws Exception {
+        // Una sola striscia: tutti i codici la condividono
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderLockRegistry registry = new OrderLockRegistry(meterRegistry, 1, 50);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> registry.withLock("ORD-A", () -> {
+            locked.countDown();
+            await(release);
+            return "ok";
+        }));
+        Assertions.assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // Un ordine diverso non attende quello in corso
+        Assertions.assertEquals("ok", registry.withLock("ORD-B", () -> "ok"));
+
+        release.countDown();
+        Assertions.assertEquals("ok", holder.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, count(meterRegistry, "timeout"));
+    }
+
+    private static double count(SimpleMeterRegistry meterRegistry, String outcome) {
+        return meterRegistry.get(OrderLockRegistry.METRIC_NAME).tag("outcome", outcome).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
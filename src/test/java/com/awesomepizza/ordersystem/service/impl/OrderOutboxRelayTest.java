@@ -0,0 +1,212 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.OrderFixtures;
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.event.OrderEvent;
+import com.awesomepizza.ordersystem.event.OrderEventSubscriber;
+import com.awesomepizza.ordersystem.model.OrderOutboxEvent;
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.repository.OrderOutboxRepository;
+import com.awesomepizza.ordersystem.service.OrderService;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Outbox degli eventi: scrittura nella stessa transazione del cambio di stato,
+ * consegna in ordine e nuovo tentativo dopo un errore del destinatario
+ */
+@SpringBootTest
+public class OrderOutboxRelayTest {
+
+    private static final String FAILING_CUSTOMER = "Outbox Failing Customer";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private OrderOutboxRelay orderOutboxRelay;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RecordingSubscriber recordingSubscriber;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void outboxFollowsTransactionTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        OrderResponse order = orderService.createOrder(OrderFixtures.request(pizzas, "Outbox Customer " + System.nanoTime()));
+        orderService.takeOrder(order.getOrderCode());
+
+        List<OrderOutboxEvent> events = orderOutboxRepository.findByOrderCodeOrderById(order.getOrderCode());
+        Assertions.assertEquals(List.of(OrderEvent.Type.CREATED, OrderEvent.Type.TAKEN),
+                events.stream().map(OrderOutboxEvent::getEventType).toList());
+
+        // Ordine annullato dal rollback: nessun evento nell'outbox
+        String rolledBackCode = transactionTemplate.execute(status -> {
+            OrderResponse rolledBack = orderService.createOrder(OrderFixtures.request(pizzas, "Outbox Rollback " + System.nanoTime()));
+            status.setRollbackOnly();
+            return rolledBack.getOrderCode();
+        });
+        Assertions.assertTrue(orderOutboxRepository.findByOrderCodeOrderById(rolledBackCode).isEmpty());
+    }
+
+    @Test
+    public void relayDeliversInOrderTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        OrderResponse order = orderService.createOrder(OrderFixtures.request(pizzas, "Outbox Relay " + System.nanoTime()));
+        orderService.takeOrder(order.getOrderCode());
+        orderService.markOrderAsReady(order.getOrderCode());
+        orderOutboxRelay.relayPending();
+
+        Assertions.assertEquals(List.of(OrderEvent.Type.CREATED, OrderEvent.Type.TAKEN, OrderEvent.Type.READY),
+                recordingSubscriber.received(order.getOrderCode()));
+        Assertions.assertTrue(orderOutboxRepository.findByOrderCodeOrderById(order.getOrderCode()).stream()
+                .allMatch(event -> event.getProcessedAt() != null));
+    }
+
+    @Test
+    public void relayRetriesFailedDeliveryTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        OrderResponse order = orderService.createOrder(OrderFixtures.request(pizzas, FAILING_CUSTOMER + " " + System.nanoTime()));
+        OrderResponse other = orderService.createOrder(OrderFixtures.request(pizzas, "Outbox Other " + System.nanoTime()));
+
+        // Primo giro: il destinatario fallisce, l'evento resta da consegnare; gli altri ordini proseguono
+        orderOutboxRelay.relayPending();
+        Assertions.assertEquals(List.of(OrderEvent.Type.CREATED), recordingSubscriber.received(other.getOrderCode()));
+        OrderOutboxEvent failed = orderOutboxRepository.findByOrderCodeOrderById(order.getOrderCode()).get(0);
+        Assertions.assertNull(failed.getProcessedAt());
+        Assertions.assertEquals(1, failed.getAttempts());
+        Assertions.assertNotNull(failed.getLastError());
+
+        // Secondo giro: riconsegna con lo stesso id (almeno una volta)
+        orderOutboxRelay.relayPending();
+        OrderOutboxEvent delivered = orderOutboxRepository.findByOrderCodeOrderById(order.getOrderCode()).get(0);
+        Assertions.assertNotNull(delivered.getProcessedAt());
+        Assertions.assertEquals(List.of(OrderEvent.Type.CREATED, OrderEvent.Type.CREATED),
+                recordingSubscriber.received(order.getOrderCode()));
+    }
+
+    @Test
+    public void relayFollowsLifecycleOverIdsTest() {
+        // Con più istanze gli id vengono da blocchi diversi della sequenza: qui TAKEN ha l'id più basso
+        String orderCode = "ORD-OUTBOX-" + System.nanoTime();
+        String payload = "{\"orderCode\":\"" + orderCode + "\",\"customerName\":\"Outbox Instances\"}";
+        long id = -System.nanoTime();
+        try {
+            jdbcTemplate.update("INSERT INTO pizzeria.order_outbox (id, order_code, event_type, payload, created_at, attempts) " +
+                    "VALUES (?, ?, 'TAKEN', ?, now(), 0), (?, ?, 'CREATED', ?, now(), 0)",
+                    id, orderCode, payload, id + 1, orderCode, payload);
+
+            // TAKEN attende la consegna di CREATED, poi parte nel blocco successivo
+            orderOutboxRelay.relayPending();
+            Assertions.assertEquals(List.of(OrderEvent.Type.CREATED, OrderEvent.Type.TAKEN),
+                    recordingSubscriber.received(orderCode));
+        } finally {
+            jdbcTemplate.update("DELETE FROM pizzeria.order_outbox WHERE order_code = ?", orderCode);
+        }
+    }
+
+    @Test
+    public void discardedEventSurvivesPurgeTest() {
+        // Ultimo tentativo (max-attempts = 10) per un evento il cui destinatario fallisce
+        String orderCode = "ORD-DISCARD-" + System.nanoTime();
+        String payload = "{\"orderCode\":\"" + orderCode + "\",\"customerName\":\"" + FAILING_CUSTOMER + "\"}";
+        long id = -System.nanoTime();
+        try {
+            jdbcTemplate.update("INSERT INTO pizzeria.order_outbox (id, order_code, event_type, payload, created_at, attempts) " +
+                    "VALUES (?, ?, 'CREATED', ?, now(), 9), (?, ?, 'TAKEN', ?, now(), 0)",
+                    id, orderCode, payload, id + 1, orderCode, payload);
+
+            // L'evento scartato non trattiene più quelli successivi dello stesso ordine
+            orderOutboxRelay.relayPending();
+            Assertions.assertEquals(List.of(OrderEvent.Type.CREATED, OrderEvent.Type.TAKEN),
+                    recordingSubscriber.received(orderCode));
+
+            // Anche dopo la pulizia resta in tabella, distinto da quelli consegnati e con l'ultimo errore
+            transactionTemplate.execute(status -> orderOutboxRepository.deleteProcessedBefore(LocalDateTime.now().plusMinutes(1)));
+            List<OrderOutboxEvent> events = orderOutboxRepository.findByOrderCodeOrderById(orderCode);
+            Assertions.assertEquals(1, events.size());
+            OrderOutboxEvent discarded = events.get(0);
+            Assertions.assertEquals(OrderEvent.Type.CREATED, discarded.getEventType());
+            Assertions.assertNull(discarded.getProcessedAt());
+            Assertions.assertNotNull(discarded.getDiscardedAt());
+            Assertions.assertEquals(10, discarded.getAttempts());
+            Assertions.assertTrue(discarded.getLastError().contains("Destinatario non disponibile"));
+
+            // Non viene più consegnato
+            orderOutboxRelay.relayPending();
+            Assertions.assertEquals(2, recordingSubscriber.received(orderCode).size());
+        } finally {
+            jdbcTemplate.update("DELETE FROM pizzeria.order_outbox WHERE order_code = ?", orderCode);
+        }
+    }
+
+    /**
+     * Registra gli eventi ricevuti; fallisce una volta sola per la creazione degli ordini di FAILING_CUSTOMER
+     * (gli altri test possono prendere in carico quegli ordini dalla coda)
+     */
+    static class RecordingSubscriber implements OrderEventSubscriber {
+
+        private final Map<String, List<OrderEvent.Type>> events = new ConcurrentHashMap<>();
+        private final Map<Long, Boolean> failedOnce = new ConcurrentHashMap<>();
+
+        @Override
+        public void onOrderEvent(long eventId, OrderEvent event) {
+            events.computeIfAbsent(event.getOrder().getOrderCode(), code -> new CopyOnWriteArrayList<>())
+                    .add(event.getType());
+            if (event.getType() == OrderEvent.Type.CREATED
+                    && event.getOrder().getCustomerName().startsWith(FAILING_CUSTOMER)
+                    && failedOnce.putIfAbsent(eventId, true) == null) {
+                throw new IllegalStateException("Destinatario non disponibile");
+            }
+        }
+
+        List<OrderEvent.Type> received(String orderCode) {
+            return events.getOrDefault(orderCode, List.of());
+        }
+    }
+
+    @TestConfiguration
+    static class SubscriberConfig {
+
+        @Bean
+        RecordingSubscriber recordingSubscriber() {
+            return new RecordingSubscriber();
+        }
+    }
+}
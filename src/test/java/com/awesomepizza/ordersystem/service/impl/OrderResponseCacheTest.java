@@ -0,0 +1,109 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.OrderFixtures;
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.model.OrderStatus;
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.service.OrderService;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@SpringBootTest
+public class OrderResponseCacheTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private OrderResponseCache orderResponseCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void transitionsUpdateCacheTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        OrderResponse order = orderService.createOrder(OrderFixtures.request(pizzas, "Cache Customer " + System.nanoTime()));
+        Assertions.assertEquals(OrderStatus.PENDING, orderService.getOrderByCode(order.getOrderCode()).orElseThrow().getStatus());
+
+        // Il cambio di stato sostituisce la voce a commit avvenuto: nessuna risposta vecchia
+        orderService.takeOrder(order.getOrderCode());
+        Assertions.assertEquals(OrderStatus.IN_PROGRESS, orderService.getOrderByCode(order.getOrderCode()).orElseThrow().getStatus());
+        orderService.markOrderAsReady(order.getOrderCode());
+        Assertions.assertEquals(OrderStatus.READY, orderService.getOrderByCode(order.getOrderCode()).orElseThrow().getStatus());
+
+        // Un aggiornamento in ritardo non riporta indietro lo stato
+        OrderResponse stale = orderService.getOrderByCode(order.getOrderCode()).orElseThrow();
+        OrderResponse older = new OrderResponse();
+        older.setOrderCode(stale.getOrderCode());
+        older.setStatus(OrderStatus.IN_PROGRESS);
+        orderResponseCache.update(older);
+        Assertions.assertEquals(OrderStatus.READY, orderService.getOrderByCode(order.getOrderCode()).orElseThrow().getStatus());
+
+        // Le metriche della cache sono esposte tramite Actuator
+        Assertions.assertNotNull(meterRegistry.find("cache.gets").tag("cache", OrderResponseCache.CACHE_NAME).meter());
+        Assertions.assertNotNull(meterRegistry.find("cache.load.duration").tag("cache", OrderResponseCache.CACHE_NAME).meter());
+    }
+
+    @Test
+    public void concurrentMissesLoadOnceTest() throws Exception {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+
+        OrderResponse order = orderService.createOrder(OrderFixtures.request(pizzas, "Cache Concurrent " + System.nanoTime()));
+        orderResponseCache.invalidate(order.getOrderCode());
+        long loadsBefore = orderResponseCache.stats().loadCount();
+
+        int readers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        try {
+            List<Future<OrderResponse>> results = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return orderService.getOrderByCode(order.getOrderCode()).orElseThrow();
+                }));
+            }
+            start.countDown();
+            for (Future<OrderResponse> result : results) {
+                Assertions.assertEquals(order.getOrderCode(), result.get().getOrderCode());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Un solo caricamento dal database per tutte le richieste concorrenti
+        Assertions.assertEquals(1, orderResponseCache.stats().loadCount() - loadsBefore);
+    }
+
+    @Test
+    public void unknownOrderNotCachedTest() {
+        long loadsBefore = orderResponseCache.stats().loadCount();
+        Assertions.assertTrue(orderService.getOrderByCode("ORD-SCONOSCIUTO").isEmpty());
+        Assertions.assertTrue(orderService.getOrderByCode("ORD-SCONOSCIUTO").isEmpty());
+
+        // Nessuna voce per gli ordini inesistenti: ogni richiesta torna al database
+        Assertions.assertEquals(2, orderResponseCache.stats().loadCount() - loadsBefore);
+    }
+}
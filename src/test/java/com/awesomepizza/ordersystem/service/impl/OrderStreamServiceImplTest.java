@@ -0,0 +1,122 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.dto.OrderResponse;
+import com.awesomepizza.ordersystem.event.OrderEvent;
+import com.awesomepizza.ordersystem.model.OrderStatus;
+import com.awesomepizza.ordersystem.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class OrderStreamServiceImplTest {
+
+    @Test
+    public void snapshotPrecedesConcurrentEventsTest() throws Exception {
+        OrderService orderService = Mockito.mock(OrderService.class);
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        OrderStreamServiceImpl stream = stream(orderService, 16, emitter);
+        // Un evento confermato mentre si legge la fotografia
+        Mockito.when(orderService.getActiveOrders()).thenAnswer(invocation -> {
+            stream.onOrderEvent(event("ORD-CONCURRENT"));
+            return List.of();
+        });
+
+        stream.subscribe();
+        stream.onOrderEvent(event("ORD-AFTER"));
+
+        List<String> frames = emitter.await(3);
+        Assertions.assertTrue(frames.get(0).contains("event:SNAPSHOT"), frames.toString());
+        Assertions.assertTrue(frames.get(1).contains("ORD-CONCURRENT"), frames.toString());
+        Assertions.assertTrue(frames.get(2).contains("ORD-AFTER"), frames.toString());
+        stream.shutdown();
+    }
+
+    @Test
+    public void slowSubscriberIsDisconnectedTest() throws Exception {
+        OrderService orderService = Mockito.mock(OrderService.class);
+        Mockito.when(orderService.getActiveOrders()).thenReturn(List.of());
+        CountDownLatch stalled = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(stalled);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        OrderStreamServiceImpl stream = stream(orderService, 4, slow, fast);
+
+        try {
+            stream.subscribe();
+            stream.subscribe();
+            // Lo schermo veloce riceve ogni evento mentre quello bloccato li accumula
+            for (int i = 0; i < 10; i++) {
+                stream.onOrderEvent(event("ORD-" + i));
+                Assertions.assertEquals(i + 2, fast.await(i + 2).size());
+            }
+
+            // Quello bloccato viene scollegato a coda piena, senza fermare gli altri
+            Assertions.assertEquals(1, stream.getSubscriberCount());
+        } finally {
+            stalled.countDown();
+            stream.shutdown();
+        }
+    }
+
+    private OrderStreamServiceImpl stream(OrderService orderService, int queueSize, SseEmitter... emitters) {
+        Deque<SseEmitter> pending = new ArrayDeque<>(List.of(emitters));
+        return new OrderStreamServiceImpl(orderService, new ObjectMapper().findAndRegisterModules(), 60_000, queueSize) {
+            @Override
+            SseEmitter newEmitter() {
+                return pending.removeFirst();
+            }
+        };
+    }
+
+    private OrderEvent event(String orderCode) {
+        OrderResponse order = new OrderResponse();
+        order.setOrderCode(orderCode);
+        order.setStatus(OrderStatus.PENDING);
+        return new OrderEvent(OrderEvent.Type.CREATED, order);
+    }
+
+    /**
+     * Registra i frame inviati; se indicato, il primo invio resta bloccato come su una connessione ferma
+     */
+    static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+        private final CountDownLatch stalled;
+
+        RecordingEmitter(CountDownLatch stalled) {
+            this.stalled = stalled;
+        }
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+            if (stalled != null) {
+                try {
+                    stalled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            frames.add(items.stream().map(item -> String.valueOf(item.getData())).collect(Collectors.joining()));
+        }
+
+        List<String> await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (frames.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return frames;
+        }
+    }
+}
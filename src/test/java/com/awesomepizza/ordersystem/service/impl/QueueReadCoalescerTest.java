@@ -0,0 +1,100 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.OrderFixtures;
+import com.awesomepizza.ordersystem.dto.OrderPage;
+import com.awesomepizza.ordersystem.model.Pizza;
+import com.awesomepizza.ordersystem.service.OrderService;
+import com.awesomepizza.ordersystem.service.PizzaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Pagine di coda condivise: durata lunga, così solo un cambio di stato può rendere la pagina nuova
+ */
+@SpringBootTest(properties = "order.queue.coalesce-ttl-ms=60000")
+public class QueueReadCoalescerTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void concurrentScreensShareOneLoadTest() throws Exception {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+        orderService.createOrder(OrderFixtures.request(pizzas, "Coalesce Customer " + System.nanoTime()));
+
+        int screens = 10;
+        double loadsBefore = loads();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(screens);
+        try {
+            List<Future<OrderPage>> pages = new ArrayList<>();
+            for (int i = 0; i < screens; i++) {
+                pages.add(executor.submit(() -> {
+                    start.await();
+                    return orderService.getActiveOrders(null, 50);
+                }));
+            }
+            start.countDown();
+            OrderPage first = pages.get(0).get();
+            for (Future<OrderPage> page : pages) {
+                Assertions.assertEquals(first.getOrders().size(), page.get().getOrders().size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Dieci schermi, un solo caricamento dal database
+        Assertions.assertEquals(1.0, loads() - loadsBefore);
+        orderService.getActiveOrders(null, 50);
+        Assertions.assertEquals(1.0, loads() - loadsBefore);
+    }
+
+    @Test
+    public void transitionInvalidatesSharedPageTest() {
+        List<Pizza> pizzas = pizzaService.getAvailablePizzas();
+        if (pizzas == null || pizzas.isEmpty()) {
+            return;
+        }
+        orderService.createOrder(OrderFixtures.request(pizzas, "Coalesce Transition " + System.nanoTime()));
+
+        // Testa della coda: la seconda lettura riusa la pagina condivisa
+        OrderPage before = orderService.getPendingOrders(null, 10);
+        double loadsBefore = loads();
+        Assertions.assertSame(before, orderService.getPendingOrders(null, 10));
+        Assertions.assertEquals(0.0, loads() - loadsBefore);
+
+        // La presa in carico fa avanzare la generazione: la pagina viene ricaricata senza l'ordine
+        String head = before.getOrders().get(0).getOrderCode();
+        orderService.takeOrder(head);
+        OrderPage after = orderService.getPendingOrders(null, 10);
+        Assertions.assertFalse(contains(after, head));
+        Assertions.assertEquals(1.0, loads() - loadsBefore);
+    }
+
+    private boolean contains(OrderPage page, String orderCode) {
+        return page.getOrders().stream().anyMatch(o -> o.getOrderCode().equals(orderCode));
+    }
+
+    private double loads() {
+        return meterRegistry.counter("order.queue.reads", "result", "loaded").count();
+    }
+}
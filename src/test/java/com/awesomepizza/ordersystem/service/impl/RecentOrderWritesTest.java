@@ -0,0 +1,131 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import com.awesomepizza.ordersystem.config.ReadWriteRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.ResponseCookie;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+public class RecentOrderWritesTest {
+
+    private final Connection primaryConnection = Mockito.mock(Connection.class);
+    private final Connection replicaConnection = Mockito.mock(Connection.class);
+    private ReadWriteRoutingDataSource routing;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        routing = new ReadWriteRoutingDataSource(dataSource(primaryConnection), List.of(dataSource(replicaConnection)),
+                new SimpleMeterRegistry());
+        routing.afterPropertiesSet();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    @AfterEach
+    public void clearState() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void writtenOrdersGoInOneCookieTest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        bind(request);
+        RecentOrderWrites writes = new RecentOrderWrites(2000, 100);
+
+        writes.register("ORD-1");
+        writes.register("ORD-2");
+
+        ResponseCookie cookie = writes.cookie(request).orElseThrow();
+        Assertions.assertEquals(RecentOrderWrites.COOKIE, cookie.getName());
+        Assertions.assertTrue(cookie.getValue().endsWith(".ORD-1.ORD-2"), cookie.getValue());
+        // Una volta sola per richiesta; una richiesta che non scrive non ha cookie
+        Assertions.assertTrue(writes.cookie(request).isEmpty());
+        Assertions.assertTrue(writes.cookie(new MockHttpServletRequest()).isEmpty());
+    }
+
+    @Test
+    public void cookieRoutesOnlyWrittenOrdersToPrimaryTest() {
+        MockHttpServletRequest write = new MockHttpServletRequest();
+        bind(write);
+        RecentOrderWrites writingInstance = new RecentOrderWrites(2000, 100);
+        writingInstance.register("ORD-1");
+        Cookie cookie = cookie(writingInstance, write);
+
+        // Altra istanza: nessuna scrittura in memoria, solo il cookie rimandato dal client
+        RecentOrderWrites otherInstance = new RecentOrderWrites(2000, 100);
+        MockHttpServletRequest poll = new MockHttpServletRequest();
+        poll.setCookies(cookie);
+        bind(poll);
+        Assertions.assertSame(primaryConnection, otherInstance.read("ORD-1", this::connection));
+        // Gli altri ordini letti dallo stesso client restano sulla replica
+        Assertions.assertSame(replicaConnection, otherInstance.read("ORD-2", this::connection));
+
+        // Senza cookie, o con un cookie fuori finestra, la lettura va sulla replica
+        bind(new MockHttpServletRequest());
+        Assertions.assertSame(replicaConnection, otherInstance.read("ORD-1", this::connection));
+        MockHttpServletRequest stale = new MockHttpServletRequest();
+        stale.setCookies(new Cookie(RecentOrderWrites.COOKIE, (System.currentTimeMillis() - 5000) + ".ORD-1"));
+        bind(stale);
+        Assertions.assertSame(replicaConnection, otherInstance.read("ORD-1", this::connection));
+    }
+
+    @Test
+    public void nextWriteKeepsPreviousOrdersTest() {
+        RecentOrderWrites writes = new RecentOrderWrites(2000, 100);
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        bind(first);
+        writes.register("ORD-1");
+        Cookie previous = cookie(writes, first);
+
+        // La scrittura successiva dello stesso client aggiunge il suo ordine a quelli ancora nella finestra
+        MockHttpServletRequest second = new MockHttpServletRequest();
+        second.setCookies(previous);
+        bind(second);
+        writes.markClient("ORD-2");
+        Cookie merged = cookie(writes, second);
+
+        MockHttpServletRequest poll = new MockHttpServletRequest();
+        poll.setCookies(merged);
+        bind(poll);
+        RecentOrderWrites otherInstance = new RecentOrderWrites(2000, 100);
+        Assertions.assertSame(primaryConnection, otherInstance.read("ORD-1", this::connection));
+        Assertions.assertSame(primaryConnection, otherInstance.read("ORD-2", this::connection));
+    }
+
+    private static Cookie cookie(RecentOrderWrites writes, MockHttpServletRequest request) {
+        ResponseCookie cookie = writes.cookie(request).orElseThrow();
+        return new Cookie(cookie.getName(), cookie.getValue());
+    }
+
+    private static void bind(MockHttpServletRequest request) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+    }
+
+    private Connection connection() {
+        try {
+            return routing.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DataSource dataSource(Connection connection) throws SQLException {
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
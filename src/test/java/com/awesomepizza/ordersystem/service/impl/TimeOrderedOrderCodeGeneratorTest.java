@@ -0,0 +1,88 @@
+package com.awesomepizza.ordersystem.service.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TimeOrderedOrderCodeGeneratorTest {
+
+    @Test
+    public void codesAreOrderedTest() {
+        TimeOrderedOrderCodeGenerator generator = new TimeOrderedOrderCodeGenerator(1, System::currentTimeMillis);
+
+        String previous = generator.nextCode();
+        for (int i = 0; i < 10_000; i++) {
+            String code = generator.nextCode();
+            Assertions.assertEquals(17, code.length());
+            Assertions.assertTrue(code.startsWith(TimeOrderedOrderCodeGenerator.PREFIX));
+            // Ordine lessicografico = ordine di generazione
+            Assertions.assertTrue(code.compareTo(previous) > 0, previous + " >= " + code);
+            previous = code;
+        }
+    }
+
+    @Test
+    public void sequenceOverflowAndClockRollbackTest() {
+        AtomicLong now = new AtomicLong(TimeOrderedOrderCodeGenerator.EPOCH_MILLIS + 1_000);
+        TimeOrderedOrderCodeGenerator generator = new TimeOrderedOrderCodeGenerator(1, now::get);
+
+        // Più di 4096 codici nello stesso millisecondo, poi l'orologio torna indietro
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        String previous = "";
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                now.addAndGet(-500);
+            }
+            String code = generator.nextCode();
+            Assertions.assertTrue(code.compareTo(previous) > 0);
+            codes.add(code);
+            previous = code;
+        }
+        Assertions.assertEquals(10_000, codes.size());
+    }
+
+    @Test
+    public void concurrentNodesUniqueTest() throws Exception {
+        List<TimeOrderedOrderCodeGenerator> nodes = List.of(
+                new TimeOrderedOrderCodeGenerator(1, System::currentTimeMillis),
+                new TimeOrderedOrderCodeGenerator(2, System::currentTimeMillis));
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 20_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                TimeOrderedOrderCodeGenerator generator = nodes.get(t % nodes.size());
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        codes.add(generator.nextCode());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertEquals(threads * perThread, codes.size());
+    }
+
+    @Test
+    public void missingNodeIdFailsTest() {
+        // Nessun id ricavato implicitamente: senza order.code.node-id il generatore non si crea
+        Assertions.assertThrows(IllegalStateException.class, () -> new TimeOrderedOrderCodeGenerator(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TimeOrderedOrderCodeGenerator(1024));
+    }
+}